@@ -0,0 +1,162 @@
+package com.codeup.novabook.Models.Connection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * In-memory H2 database (MySQL mode) standing in for MySQL in the benchmarks,
+ * so they run offline and always start from the same data.
+ *
+ * start() points ConfigManager at it through system properties before the
+ * pool is created, so the DAOs run unchanged against ConnectionDB.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public final class EmbeddedDatabase {
+
+    public static final int LIBROS = 10_000;
+    public static final int SOCIOS = 1_000;
+    public static final int PRESTAMOS = 20_000;
+
+    private static final String[] PALABRAS = {
+        "Cien", "años", "de", "soledad", "El", "amor", "en", "los", "tiempos", "del", "cólera",
+        "Crónica", "una", "muerte", "anunciada", "La", "casa", "espíritus", "Rayuela", "Pedro", "Páramo",
+        "sombra", "viento", "ciudad", "perros", "noche", "Ficciones", "Aleph", "túnel", "laberinto"
+    };
+    private static final String[] AUTORES = {
+        "Gabriel García Márquez", "Isabel Allende", "Julio Cortázar", "Juan Rulfo", "Carlos Ruiz Zafón",
+        "Mario Vargas Llosa", "Jorge Luis Borges", "Ernesto Sábato", "Octavio Paz", "Laura Esquivel"
+    };
+    private static final String[] NOMBRES = {
+        "María", "José", "Andrés", "Lucía", "Sofía", "Juan", "Camila", "Valentina", "Mateo", "Ángel"
+    };
+    private static final String[] APELLIDOS = {
+        "Gómez", "Rodríguez", "Pérez", "Martínez", "Núñez", "Jiménez", "Díaz", "Muñoz", "Ramírez", "Castaño"
+    };
+
+    private static boolean started;
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * Create and fill the database once per JVM (benchmark fork)
+     */
+    public static synchronized void start() throws SQLException, IOException {
+        if (started) {
+            return;
+        }
+        System.setProperty("database.url",
+            "jdbc:h2:mem:novabook;MODE=MySQL;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE");
+        System.setProperty("database.driver", "org.h2.Driver");
+        System.setProperty("database.username", "sa");
+        System.setProperty("database.password", "");
+        // H2 has no row-by-row streaming mode (negative fetch sizes are rejected)
+        System.setProperty("database.streaming.fetchSize", "500");
+
+        try (Connection conn = ConnectionDB.getConnection()) {
+            if (conn == null) {
+                throw new SQLException("Could not open the embedded database");
+            }
+            crearEsquema(conn);
+            poblar(conn);
+        }
+        started = true;
+    }
+
+    private static void crearEsquema(Connection conn) throws SQLException, IOException {
+        String script;
+        try (InputStream in = EmbeddedDatabase.class.getResourceAsStream("/benchmark-schema.sql")) {
+            if (in == null) {
+                throw new IOException("benchmark-schema.sql not found in classpath");
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        try (Statement st = conn.createStatement()) {
+            for (String sql : script.replaceAll("(?m)^--.*$", "").split(";")) {
+                if (!sql.isBlank()) {
+                    st.execute(sql);
+                }
+            }
+        }
+    }
+
+    private static void poblar(Connection conn) throws SQLException {
+        Random random = new Random(42);
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO Libro (titulo, autor, isbn, anio_publicacion, disponible) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= LIBROS; i++) {
+                ps.setString(1, titulo(random));
+                ps.setString(2, autor(random));
+                ps.setString(3, isbn(i));
+                ps.setInt(4, 1900 + random.nextInt(125));
+                ps.setBoolean(5, true);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO Socio (nombre, direccion, telefono, email, activo) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= SOCIOS; i++) {
+                ps.setString(1, nombre(random));
+                ps.setString(2, "Calle " + (1 + random.nextInt(100)) + " # " + random.nextInt(100) + "-" + random.nextInt(100));
+                ps.setString(3, "300" + (1_000_000 + random.nextInt(9_000_000)));
+                ps.setString(4, "socio" + i + "@novabook.com");
+                ps.setBoolean(5, random.nextInt(10) > 0);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        // Two thirds returned, the rest active and spread over the last 60 days (some overdue)
+        LocalDate hoy = LocalDate.now();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO Prestamo (libro_id, socio_id, fecha_prestamo, fecha_devolucion, devuelto) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= PRESTAMOS; i++) {
+                LocalDate fecha = hoy.minusDays(random.nextInt(60));
+                boolean devuelto = i % 3 != 0;
+                ps.setInt(1, 1 + random.nextInt(LIBROS));
+                ps.setInt(2, 1 + random.nextInt(SOCIOS));
+                ps.setDate(3, Date.valueOf(fecha));
+                ps.setDate(4, devuelto ? Date.valueOf(fecha.plusDays(random.nextInt(20))) : null);
+                ps.setBoolean(5, devuelto);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    public static String titulo(Random random) {
+        int palabras = 2 + random.nextInt(4);
+        StringBuilder titulo = new StringBuilder();
+        for (int i = 0; i < palabras; i++) {
+            if (i > 0) {
+                titulo.append(' ');
+            }
+            titulo.append(PALABRAS[random.nextInt(PALABRAS.length)]);
+        }
+        return titulo.toString();
+    }
+
+    public static String autor(Random random) {
+        return AUTORES[random.nextInt(AUTORES.length)];
+    }
+
+    public static String nombre(Random random) {
+        return NOMBRES[random.nextInt(NOMBRES.length)] + " " + APELLIDOS[random.nextInt(APELLIDOS.length)];
+    }
+
+    public static String isbn(int i) {
+        return String.format("978-%010d", i);
+    }
+}
@@ -0,0 +1,76 @@
+package com.codeup.novabook.Models.DAO;
+
+import com.codeup.novabook.Models.Connection.ConnectionDB;
+import com.codeup.novabook.Models.Connection.EmbeddedDatabase;
+import com.codeup.novabook.Models.Entity.Loan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loan listing and row mapping (Loan + Book + Partner per row) against the
+ * embedded database: EmbeddedDatabase.PRESTAMOS loans, a third of them active.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanDAOBenchmark {
+
+    private LoanDAO loanDAO;
+    private LoanCriteria activos;
+
+    @Setup
+    public void setUp() throws Exception {
+        EmbeddedDatabase.start();
+        loanDAO = new LoanDAO();
+        activos = new LoanCriteria();
+        activos.setEstado(LoanCriteria.Estado.ACTIVOS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ConnectionDB.shutdown();
+    }
+
+    @Benchmark
+    public List<Loan> listar() throws Exception {
+        return loanDAO.listar();
+    }
+
+    @Benchmark
+    public List<Loan> listarPrestamosActivos() throws Exception {
+        return loanDAO.listarPrestamosActivos();
+    }
+
+    @Benchmark
+    public Page<Loan> listarPagina() throws Exception {
+        return loanDAO.listarPagina(new LoanCriteria(), 0, 500);
+    }
+
+    @Benchmark
+    public Page<Loan> listarPaginaActivos() throws Exception {
+        return loanDAO.listarPagina(activos, 0, 500);
+    }
+
+    @Benchmark
+    public void recorrer(Blackhole bh) throws Exception {
+        loanDAO.recorrer(bh::consume);
+    }
+}
@@ -0,0 +1,129 @@
+package com.codeup.novabook.Reports;
+
+import com.codeup.novabook.Models.Connection.ConnectionDB;
+import com.codeup.novabook.Models.Connection.EmbeddedDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV book import: record parsing/validation on its own, and the whole
+ * pipeline (mapped read, parallel parse, ISBN lookup, batch insert) into the
+ * embedded database. Every tenth title is quoted with an embedded comma or quote.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CSVBookImporterBenchmark {
+
+    private static final String ISBN_PREFIX = "IMP-";
+
+    @Param({"10000"})
+    public int filas;
+
+    private String[] lineas;
+    private List<CSVBookImporter.CSVRecord> registros;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        lineas = new String[filas];
+        registros = new ArrayList<>(filas);
+        for (int i = 0; i < filas; i++) {
+            String titulo = EmbeddedDatabase.titulo(random);
+            if (i % 10 == 0) {
+                titulo = "\"" + titulo + ", \"\"edición\"\" " + i + "\"";
+            }
+            lineas[i] = titulo + "," + EmbeddedDatabase.autor(random) + ","
+                + ISBN_PREFIX + String.format("%08d", i) + "," + (1900 + random.nextInt(125));
+            registros.add(new CSVBookImporter.CSVRecord(i + 2,
+                ByteBuffer.wrap(lineas[i].getBytes(StandardCharsets.UTF_8))));
+        }
+    }
+
+    /**
+     * The same rows written to a file, imported into the embedded database
+     */
+    @State(Scope.Benchmark)
+    public static class Importacion {
+        private File archivo;
+        private CSVBookImporter importer;
+
+        @Setup
+        public void setUp(CSVBookImporterBenchmark datos) throws Exception {
+            archivo = File.createTempFile("novabook-import", ".csv");
+            archivo.deleteOnExit();
+            try (BufferedWriter writer = Files.newBufferedWriter(archivo.toPath(), StandardCharsets.UTF_8)) {
+                writer.write("Title,Author,ISBN,Publication Year");
+                writer.newLine();
+                for (String linea : datos.lineas) {
+                    writer.write(linea);
+                    writer.newLine();
+                }
+            }
+            EmbeddedDatabase.start();
+            importer = new CSVBookImporter();
+        }
+
+        /**
+         * Remove the books of the previous import so every import inserts all rows
+         */
+        @Setup(Level.Invocation)
+        public void borrarImportados() throws Exception {
+            try (Connection conn = ConnectionDB.getConnection();
+                 Statement st = conn.createStatement()) {
+                st.executeUpdate("DELETE FROM Libro WHERE isbn LIKE '" + ISBN_PREFIX + "%'");
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            ConnectionDB.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void parseBookFromCSVLine(Blackhole bh) throws Exception {
+        for (int i = 0; i < lineas.length; i++) {
+            bh.consume(CSVBookImporter.parseBookFromCSVLine(lineas[i], i + 2));
+        }
+    }
+
+    @Benchmark
+    public void parseChunk(Blackhole bh) {
+        bh.consume(CSVBookImporter.parseChunk(registros));
+    }
+
+    @Benchmark
+    public CSVBookImporter.ImportResult importBooksFromCSV(Importacion importacion) throws Exception {
+        return importacion.importer.importBooksFromCSV(importacion.archivo);
+    }
+}
@@ -0,0 +1,114 @@
+package com.codeup.novabook.Reports;
+
+import com.codeup.novabook.Models.Connection.ConnectionDB;
+import com.codeup.novabook.Models.Connection.EmbeddedDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.Writer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV report writing: value escaping and row formatting in memory, and the
+ * full all-loans and catalog reports streamed from the embedded database to a file.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CSVReportGeneratorBenchmark {
+
+    private static final int FILAS = 10_000;
+
+    private String[][] filas;
+    private CSVReportGenerator generator;
+    private File salida;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Mostly plain values, with the commas, quotes and line breaks that need quoting mixed in
+        Random random = new Random(11);
+        filas = new String[FILAS][];
+        for (int i = 0; i < FILAS; i++) {
+            String titulo = EmbeddedDatabase.titulo(random);
+            switch (i % 20) {
+                case 0:
+                    titulo = titulo + ", segunda parte";
+                    break;
+                case 1:
+                    titulo = "\"" + titulo + "\"";
+                    break;
+                case 2:
+                    titulo = titulo + "\nEdición revisada";
+                    break;
+                default:
+                    break;
+            }
+            filas[i] = new String[]{
+                String.valueOf(i), titulo, EmbeddedDatabase.autor(random), EmbeddedDatabase.nombre(random),
+                "socio" + i + "@novabook.com", "2024-03-20", "", "Active", "5", "No"
+            };
+        }
+
+        EmbeddedDatabase.start();
+        generator = new CSVReportGenerator();
+        salida = File.createTempFile("novabook-report", ".csv");
+        salida.deleteOnExit();
+    }
+
+    @TearDown
+    public void tearDown() {
+        ConnectionDB.shutdown();
+    }
+
+    @Benchmark
+    public void escapeCSVValue(Blackhole bh) {
+        for (String[] fila : filas) {
+            for (String valor : fila) {
+                bh.consume(CSVReportGenerator.escapeCSVValue(valor));
+            }
+        }
+    }
+
+    @Benchmark
+    public void writeCSVRow() throws Exception {
+        try (BufferedWriter writer = new BufferedWriter(Writer.nullWriter())) {
+            String[] escapada = new String[filas[0].length];
+            for (String[] fila : filas) {
+                for (int i = 0; i < fila.length; i++) {
+                    escapada[i] = CSVReportGenerator.escapeCSVValue(fila[i]);
+                }
+                CSVReportGenerator.writeCSVRow(writer, escapada);
+            }
+        }
+    }
+
+    @Benchmark
+    public long generateAllLoansReport() throws Exception {
+        generator.generateAllLoansReport(salida);
+        return salida.length();
+    }
+
+    @Benchmark
+    public long generateBookCatalogReport() throws Exception {
+        generator.generateBookCatalogReport(salida);
+        return salida.length();
+    }
+}
@@ -0,0 +1,91 @@
+package com.codeup.novabook.Views;
+
+import com.codeup.novabook.Models.Connection.EmbeddedDatabase;
+import com.codeup.novabook.Models.DAO.BookSearchIndex;
+import com.codeup.novabook.Models.Entity.Book;
+import com.codeup.novabook.Models.Entity.Partner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search as the views run it, without JavaFX: the BooksView search over the
+ * in-memory book index (for a 10K and a 1M title catalog), and the in-memory
+ * narrowing PartnersView and UsersView apply when a query extends the
+ * previous one. The one- and two-letter queries are what the index sees
+ * while the first letters are typed.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchFilterBenchmark {
+
+    @Param({"c", "ga", "cien", "garcia marq", "sombra del viento", "978-00000012"})
+    public String query;
+
+    private List<Partner> socios;
+
+    /**
+     * The book index, built once per catalog size
+     */
+    @State(Scope.Benchmark)
+    public static class Catalogo {
+        @Param({"10000", "1000000"})
+        public int libros;
+
+        private BookSearchIndex index;
+
+        @Setup
+        public void setUp() {
+            Random random = new Random(3);
+            index = new BookSearchIndex();
+            index.beginLoad();
+            for (int i = 1; i <= libros; i++) {
+                index.load(new Book(i, EmbeddedDatabase.titulo(random), EmbeddedDatabase.autor(random),
+                    EmbeddedDatabase.isbn(i), 1900 + random.nextInt(125), true, LocalDateTime.now()));
+            }
+            index.finishLoad(true);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(3);
+        socios = new ArrayList<>(EmbeddedDatabase.SOCIOS);
+        for (int i = 1; i <= EmbeddedDatabase.SOCIOS; i++) {
+            socios.add(new Partner(i, EmbeddedDatabase.nombre(random), "Calle " + i, "300" + i,
+                "socio" + i + "@novabook.com", true, LocalDateTime.now()));
+        }
+    }
+
+    @Benchmark
+    public List<Book> searchBooks(Catalogo catalogo) {
+        return catalogo.index.search(query, 50);
+    }
+
+    @Benchmark
+    public List<Partner> filterPartners() {
+        List<Partner> visibles = new ArrayList<>(socios);
+        DebouncedSearch.keepMatching(visibles, query, Partner::getNombre, Partner::getEmail);
+        return visibles;
+    }
+}
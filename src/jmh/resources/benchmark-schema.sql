@@ -0,0 +1,48 @@
+-- ====================================================================
+-- NovaBook - In-memory schema for the JMH benchmarks (H2, MySQL mode)
+-- Author: Luis Alfredo - Clan Cienaga
+-- Description: Tables and indexes of database/schema.sql used by the
+--              benchmarked DAOs; the MySQL triggers are left out
+-- ====================================================================
+
+CREATE TABLE IF NOT EXISTS Socio (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    nombre VARCHAR(100) NOT NULL,
+    direccion VARCHAR(255),
+    telefono VARCHAR(50),
+    email VARCHAR(150) UNIQUE,
+    fecha_registro TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    activo BOOLEAN NOT NULL DEFAULT TRUE
+);
+
+CREATE TABLE IF NOT EXISTS Libro (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    titulo VARCHAR(255) NOT NULL,
+    autor VARCHAR(255) NOT NULL,
+    isbn VARCHAR(20) UNIQUE NOT NULL,
+    anio_publicacion INT NOT NULL,
+    disponible BOOLEAN NOT NULL DEFAULT TRUE,
+    fecha_alta TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS Prestamo (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    libro_id INT NOT NULL,
+    socio_id INT NOT NULL,
+    fecha_prestamo DATE NOT NULL DEFAULT CURRENT_DATE,
+    fecha_devolucion DATE,
+    devuelto BOOLEAN NOT NULL DEFAULT FALSE,
+    multa_calculada DECIMAL(10,2) DEFAULT 0.00,
+    observaciones TEXT,
+    CONSTRAINT fk_prestamo_libro FOREIGN KEY (libro_id) REFERENCES Libro(id),
+    CONSTRAINT fk_prestamo_socio FOREIGN KEY (socio_id) REFERENCES Socio(id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_libro_titulo ON Libro(titulo);
+CREATE INDEX IF NOT EXISTS idx_libro_autor ON Libro(autor);
+CREATE INDEX IF NOT EXISTS idx_libro_disponible ON Libro(disponible);
+CREATE INDEX IF NOT EXISTS idx_socio_nombre ON Socio(nombre);
+CREATE INDEX IF NOT EXISTS idx_socio_activo ON Socio(activo);
+CREATE INDEX IF NOT EXISTS idx_prestamo_fecha ON Prestamo(fecha_prestamo);
+CREATE INDEX IF NOT EXISTS idx_prestamo_devuelto ON Prestamo(devuelto);
+CREATE INDEX IF NOT EXISTS idx_prestamo_libro_socio ON Prestamo(libro_id, socio_id);
@@ -1,11 +1,15 @@
 package com.codeup.novabook.App;
 
 import com.codeup.novabook.Models.Connection.ConnectionDB;
+import com.codeup.novabook.Models.Connection.QueryMetrics;
+import com.codeup.novabook.Models.DAO.BookDAO;
+import com.codeup.novabook.Models.DAO.PartnerDAO;
 import com.codeup.novabook.Utils.AppLogger;
 import com.codeup.novabook.Utils.ConfigManager;
 import com.codeup.novabook.Views.LoginView;
 import javafx.application.Application;
 import javafx.stage.Stage;
+import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.logging.Logger;
@@ -43,6 +47,7 @@ public class NovaBook extends Application {
             if (!ConnectionDB.testConnection()) {
                 LOGGER.severe("Failed to establish database connection. Exiting application.");
                 AppLogger.logSystemEvent("APPLICATION_EXIT", "Database connection failed");
+                ConnectionDB.shutdown();
                 AppLogger.shutdown();
                 System.exit(1);
             }
@@ -92,8 +97,24 @@ public class NovaBook extends Application {
                 LOGGER.info("Application shutdown requested by user");
                 AppLogger.logSystemEvent("APPLICATION_SHUTDOWN", "User requested application closure");
                 
+                // Save the DAO latency snapshot (a failure here must not keep the pool open)
+                try {
+                    LOGGER.info(QueryMetrics.getReport());
+                    String metricsFile = config.getMetricsDumpFile();
+                    if (!metricsFile.isEmpty()) {
+                        QueryMetrics.dumpTo(Paths.get(metricsFile));
+                    }
+                } catch (Exception e) {
+                    LOGGER.warning("Error writing DAO metrics: " + e.getMessage());
+                    AppLogger.logError("NovaBook", "DAO metrics dump error", e);
+                }
+                
                 try {
                     // Clean up database connections
+                    LOGGER.info(ConnectionDB.getPoolStats());
+                    LOGGER.info(BookDAO.getCache().getStats());
+                    LOGGER.info(PartnerDAO.getCache().getStats());
+                    ConnectionDB.shutdown();
                     com.mysql.cj.jdbc.AbandonedConnectionCleanupThread.checkedShutdown();
                     LOGGER.info("Database connections cleaned up");
                 } catch (Exception e) {
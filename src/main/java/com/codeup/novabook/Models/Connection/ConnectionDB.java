@@ -3,64 +3,119 @@ package com.codeup.novabook.Models.Connection;
 import com.codeup.novabook.Utils.ConfigManager;
 import com.codeup.novabook.Utils.AppLogger;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.logging.Logger;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.pool2.impl.GenericObjectPool;
 
 /**
  * Database Connection Manager for NovaBook Library Management System
- * 
- * This class manages database connections using configuration from config.properties
- * and provides logging for connection events.
- * 
+ *
+ * This class manages a pooled DataSource built from the connection pool settings
+ * in config.properties and provides logging for connection events.
+ * Connections returned by getConnection() are borrowed from the pool and are
+ * given back to it when closed.
+ *
  * @author Luis Alfredo - Clan Cienaga
  */
 public class ConnectionDB {
     
     private static final Logger LOGGER = AppLogger.getLogger(ConnectionDB.class);
     private static ConfigManager config = ConfigManager.getInstance();
+    private static BasicDataSource dataSource;
     
     /**
-     * Get database connection using configuration properties
+     * Get the pooled DataSource, creating it on first use
+     * @return BasicDataSource configured from config.properties
+     */
+    private static synchronized BasicDataSource getDataSource() {
+        if (dataSource == null) {
+            BasicDataSource ds = new BasicDataSource();
+            ds.setDriverClassName(config.getDatabaseDriver());
+            ds.setUrl(config.getDatabaseUrl());
+            ds.setUsername(config.getDatabaseUsername());
+            ds.setPassword(config.getDatabasePassword());
+            
+            // Let Connector/J send JDBC batches as multi-row statements
+            ds.addConnectionProperty("rewriteBatchedStatements", "true");
+            
+            // Pool size
+            ds.setMaxTotal(config.getMaxConnections());
+            ds.setMaxIdle(config.getMaxConnections());
+            ds.setMinIdle(config.getMinConnections());
+            ds.setInitialSize(config.getMinConnections());
+            
+            // Borrow timeout: fail instead of blocking forever when the pool is exhausted
+            ds.setMaxWait(Duration.ofMillis(config.getConnectionTimeout()));
+            
+            // Validate connections on borrow and while idle so dropped sockets are not handed out
+            ds.setValidationQuery(config.getPoolValidationQuery());
+            ds.setValidationQueryTimeout(Duration.ofSeconds(5));
+            ds.setTestOnBorrow(true);
+            ds.setTestWhileIdle(true);
+            ds.setDurationBetweenEvictionRuns(Duration.ofMillis(config.getPoolEvictionInterval()));
+            
+            dataSource = ds;
+            
+            LOGGER.info("Database connection pool created (min=" + config.getMinConnections()
+                + ", max=" + config.getMaxConnections() + ")");
+            AppLogger.logDatabaseOperation("POOL_INIT", "DATABASE", true, "Pool for: " + config.getDatabaseUrl());
+        }
+        return dataSource;
+    }
+    
+    /**
+     * Get database connection from the pool
+     * The time spent waiting for it is recorded in QueryMetrics, and the statements
+     * it runs are timed into QueryMetrics (metrics.enabled) and written to the
+     * event log (logging.events.enabled).
      * @return Connection object or null if connection fails
      */
     public static Connection getConnection() {
         Connection conn = null;
+        long start = System.nanoTime();
         
         try {
-            // Load database configuration from config.properties
-            String url = config.getDatabaseUrl();
-            String user = config.getDatabaseUsername();
-            String password = config.getDatabasePassword();
-            String driver = config.getDatabaseDriver();
-            
-            // Load database driver
-            Class.forName(driver);
-            
-            // Establish connection
-            conn = DriverManager.getConnection(url, user, password);
-            
-            // Log successful connection
-            LOGGER.info("Database connection established successfully");
-            AppLogger.logDatabaseOperation("CONNECTION", "DATABASE", true, "Connected to: " + url);
-            
+            conn = getDataSource().getConnection();
+            QueryMetrics.recordPoolWait(System.nanoTime() - start, true);
+            LOGGER.fine("Database connection borrowed from pool");
+            boolean metrics = config.isMetricsEnabled();
+            boolean events = AppLogger.isEventLogEnabled();
+            if (metrics || events) {
+                conn = MeteredConnection.wrap(conn, metrics, events);
+            }
+        
         } catch (SQLException e) {
-            // Log database connection error
+            QueryMetrics.recordPoolWait(System.nanoTime() - start, false);
+            // Log database connection error (includes pool exhaustion timeouts)
             String errorMsg = "Database connection failed: " + e.getMessage();
             LOGGER.severe(errorMsg);
             AppLogger.logDatabaseOperation("CONNECTION", "DATABASE", false, errorMsg);
             AppLogger.logError("ConnectionDB", "Failed to establish database connection", e);
-            
-        } catch (ClassNotFoundException e) {
-            // Log driver loading error
-            String errorMsg = "Database driver not found: " + e.getMessage();
-            LOGGER.severe(errorMsg);
-            AppLogger.logError("ConnectionDB", "Database driver not found", e);
         }
         
         return conn;
     }
     
+    /**
+     * Prepare a forward-only, read-only statement whose result set is streamed
+     * from the server instead of being loaded into memory all at once.
+     * The connection cannot run other statements until the result set is closed.
+     * @param conn Connection to prepare the statement on
+     * @param sql SQL query
+     * @return PreparedStatement configured for streaming
+     */
+    public static PreparedStatement prepareStreamingStatement(Connection conn, String sql) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        int fetchSize = config.getStreamingFetchSize();
+        // Connector/J streams row by row with Integer.MIN_VALUE; positive sizes use a server-side cursor
+        ps.setFetchSize(fetchSize > 0 ? fetchSize : Integer.MIN_VALUE);
+        return ps;
+    }
+    
     /**
      * Test database connection
      * @return true if connection is successful, false otherwise
@@ -80,14 +135,14 @@ public class ConnectionDB {
     }
     
     /**
-     * Close connection safely
+     * Close connection safely (returns it to the pool)
      * @param conn Connection to close
      */
     public static void closeConnection(Connection conn) {
         if (conn != null) {
             try {
                 conn.close();
-                LOGGER.fine("Database connection closed");
+                LOGGER.fine("Database connection returned to pool");
             } catch (SQLException e) {
                 LOGGER.warning("Error closing database connection: " + e.getMessage());
                 AppLogger.logError("ConnectionDB", "Error closing connection", e);
@@ -95,14 +150,74 @@ public class ConnectionDB {
         }
     }
     
+    /**
+     * Close the connection pool and release all physical connections
+     * Should be called once when the application exits
+     */
+    public static synchronized void shutdown() {
+        if (dataSource != null) {
+            try {
+                dataSource.close();
+                LOGGER.info("Database connection pool closed");
+                AppLogger.logSystemEvent("POOL_SHUTDOWN", "Database connection pool closed");
+            } catch (SQLException e) {
+                LOGGER.warning("Error closing database connection pool: " + e.getMessage());
+                AppLogger.logError("ConnectionDB", "Error closing connection pool", e);
+            } finally {
+                dataSource = null;
+            }
+        }
+    }
+    
+    /**
+     * Get number of connections currently borrowed from the pool
+     * @return active connection count
+     */
+    public static synchronized int getActiveConnections() {
+        return dataSource != null ? dataSource.getNumActive() : 0;
+    }
+    
+    /**
+     * Get number of idle connections waiting in the pool
+     * @return idle connection count
+     */
+    public static synchronized int getIdleConnections() {
+        return dataSource != null ? dataSource.getNumIdle() : 0;
+    }
+    
+    /**
+     * Get number of threads currently blocked waiting for a connection
+     * @return waiting thread count
+     */
+    public static synchronized int getWaitingThreads() {
+        if (dataSource == null) {
+            return 0;
+        }
+        GenericObjectPool<?> pool = dataSource.getConnectionPool();
+        return pool != null ? pool.getNumWaiters() : 0;
+    }
+    
+    /**
+     * Get connection pool statistics (for debugging)
+     * @return String with active, idle and waiting counts
+     */
+    public static String getPoolStats() {
+        return String.format("Pool active: %d, idle: %d, waiting: %d",
+            getActiveConnections(),
+            getIdleConnections(),
+            getWaitingThreads());
+    }
+    
     /**
      * Get database configuration info (for debugging)
      * @return String with connection info (without password)
      */
     public static String getConnectionInfo() {
-        return String.format("Database URL: %s, User: %s, Driver: %s", 
-            config.getDatabaseUrl(), 
+        return String.format("Database URL: %s, User: %s, Driver: %s, Pool: %d-%d",
+            config.getDatabaseUrl(),
             config.getDatabaseUsername(),
-            config.getDatabaseDriver());
+            config.getDatabaseDriver(),
+            config.getMinConnections(),
+            config.getMaxConnections());
     }
 }
@@ -0,0 +1,184 @@
+package com.codeup.novabook.Models.Connection;
+
+import com.codeup.novabook.Utils.AppLogger;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wraps a pooled connection so every statement it runs is timed into QueryMetrics
+ * and/or written as an event to the JSON-lines event log.
+ *
+ * The DAO method that prepares a statement names the operation and the first
+ * table in its SQL names the table, so every DAO is measured without changing it.
+ * Only the execute* calls are timed; everything else is passed straight through.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+final class MeteredConnection {
+
+    private static final String DAO_PACKAGE = "com.codeup.novabook.Models.DAO.";
+    private static final StackWalker WALKER = StackWalker.getInstance();
+    // SQL text is mostly constant; IN-lists of varying size are the exception, hence the cap
+    private static final int MAX_CACHED_TABLES = 1000;
+    private static final ConcurrentMap<String, String> TABLES = new ConcurrentHashMap<>();
+
+    private MeteredConnection() {
+    }
+
+    /**
+     * @param metrics record the timings in QueryMetrics
+     * @param events write one event per executed statement to the event log
+     */
+    static Connection wrap(Connection connection, boolean metrics, boolean events) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[]{Connection.class}, new ConnectionHandler(connection, metrics, events));
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final boolean metrics;
+        private final boolean events;
+
+        ConnectionHandler(Connection target, boolean metrics, boolean events) {
+            this.target = target;
+            this.metrics = metrics;
+            this.events = events;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = forward(target, method, args);
+            String name = method.getName();
+            if (result instanceof Statement && (name.equals("prepareStatement") || name.equals("prepareCall"))) {
+                return wrapStatement((Statement) result, callerOperation(), tableOf((String) args[0]), metrics, events);
+            }
+            if (result instanceof Statement && name.equals("createStatement")) {
+                return wrapStatement((Statement) result, null, null, metrics, events);
+            }
+            return result;
+        }
+    }
+
+    private static Statement wrapStatement(Statement statement, String operation, String table,
+                                           boolean metrics, boolean events) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+            : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+            new Class<?>[]{type}, new StatementHandler(statement, operation, table, metrics, events));
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String operation;
+        private final String table;
+        private final QueryMetrics.OperationStats stats;
+        private final boolean metrics;
+        private final boolean events;
+
+        /**
+         * @param operation caller of prepareStatement, or null for plain statements (resolved per execute)
+         */
+        StatementHandler(Statement target, String operation, String table, boolean metrics, boolean events) {
+            this.target = target;
+            this.operation = operation;
+            this.table = table;
+            this.stats = metrics && operation != null ? QueryMetrics.forOperation(operation, table) : null;
+            this.metrics = metrics;
+            this.events = events;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return forward(target, method, args);
+            }
+            // Plain statements get their SQL at execute time
+            String op = operation != null ? operation : callerOperation();
+            String tbl = operation != null ? table
+                : args != null && args.length > 0 && args[0] instanceof String ? tableOf((String) args[0]) : "?";
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                Object result = forward(target, method, args);
+                success = true;
+                return result;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                if (metrics) {
+                    (stats != null ? stats : QueryMetrics.forOperation(op, tbl)).record(elapsed, success);
+                }
+                if (events) {
+                    AppLogger.logEvent(op, tbl, elapsed, success, null);
+                }
+            }
+        }
+    }
+
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @return "SimpleClassName.method" of the nearest DAO frame, or of the first caller outside this package
+     */
+    static String callerOperation() {
+        Optional<StackWalker.StackFrame> frame = WALKER.walk(frames -> frames
+            .filter(f -> f.getClassName().startsWith(DAO_PACKAGE))
+            .findFirst());
+        if (!frame.isPresent()) {
+            frame = WALKER.walk(frames -> frames
+                .filter(f -> !f.getClassName().startsWith(MeteredConnection.class.getPackageName())
+                    && !f.getClassName().startsWith("com.sun.proxy")
+                    && !f.getClassName().startsWith("jdk.proxy")
+                    && !f.getClassName().startsWith("java."))
+                .findFirst());
+        }
+        return frame.map(f -> {
+            String className = f.getClassName();
+            return className.substring(className.lastIndexOf('.') + 1) + "." + f.getMethodName();
+        }).orElse("unknown");
+    }
+
+    /**
+     * First table named after FROM, INTO, UPDATE or JOIN, e.g. "Prestamo"
+     */
+    static String tableOf(String sql) {
+        String cached = TABLES.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String table = parseTable(sql);
+        if (TABLES.size() < MAX_CACHED_TABLES) {
+            TABLES.put(sql, table);
+        }
+        return table;
+    }
+
+    private static String parseTable(String sql) {
+        String[] words = sql.trim().split("[\\s,()]+");
+        for (int i = 0; i < words.length - 1; i++) {
+            String word = words[i].toUpperCase(Locale.ROOT);
+            if (word.equals("FROM") || word.equals("INTO") || word.equals("UPDATE") || word.equals("JOIN")) {
+                String next = words[i + 1];
+                if (!next.isEmpty() && Character.isLetter(next.charAt(0)) && !next.equalsIgnoreCase("SELECT")) {
+                    return next;
+                }
+            }
+        }
+        return "?";
+    }
+}
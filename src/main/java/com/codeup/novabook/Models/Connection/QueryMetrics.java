@@ -0,0 +1,158 @@
+package com.codeup.novabook.Models.Connection;
+
+import com.codeup.novabook.Utils.JsonLinesFormatter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process registry of database latency per DAO operation and table.
+ *
+ * Every statement executed on a connection from ConnectionDB is timed and
+ * recorded under the DAO method that prepared it (e.g. "BookDAO.listarPagina")
+ * and the table it touches. The time spent waiting for a pooled connection is
+ * recorded separately under POOL_WAIT, so a slow pool does not look like a slow query.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public class QueryMetrics {
+
+    /** Operation name used for the time spent borrowing a connection from the pool */
+    public static final String POOL_WAIT = "POOL_WAIT";
+
+    /**
+     * Counters and latency histogram of one operation on one table
+     */
+    public static class OperationStats {
+        private final String operation;
+        private final String table;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        OperationStats(String operation, String table) {
+            this.operation = operation;
+            this.table = table;
+        }
+
+        public void record(long nanos, boolean success) {
+            latency.recordNanos(nanos);
+            if (!success) {
+                errors.increment();
+            }
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public long getCount() {
+            return latency.getCount();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+    }
+
+    private static final ConcurrentMap<String, OperationStats> STATS = new ConcurrentHashMap<>();
+
+    private QueryMetrics() {
+    }
+
+    /**
+     * Get (creating it on first use) the statistics of an operation
+     * @param operation DAO method, e.g. "LoanDAO.agregar"
+     * @param table table touched, e.g. "Prestamo"
+     */
+    public static OperationStats forOperation(String operation, String table) {
+        return STATS.computeIfAbsent(operation + " " + table, key -> new OperationStats(operation, table));
+    }
+
+    /**
+     * Record how long a thread waited to borrow a connection
+     * @param nanos wait time
+     * @param success false if no connection was obtained
+     */
+    public static void recordPoolWait(long nanos, boolean success) {
+        forOperation(POOL_WAIT, "DATABASE").record(nanos, success);
+    }
+
+    /**
+     * @return statistics of every operation seen so far, slowest total time first
+     */
+    public static List<OperationStats> getAll() {
+        List<OperationStats> all = new ArrayList<>(STATS.values());
+        all.sort(Comparator.comparingDouble((OperationStats s) -> s.getCount() * s.getLatency().getMeanMillis()).reversed());
+        return all;
+    }
+
+    public static void reset() {
+        STATS.clear();
+    }
+
+    /**
+     * Get a human-readable table of the statistics (for debugging)
+     * @return one line per operation with count, errors and latency percentiles in ms
+     */
+    public static String getReport() {
+        StringBuilder report = new StringBuilder("DAO latency (ms):");
+        for (OperationStats stats : getAll()) {
+            LatencyHistogram latency = stats.getLatency();
+            report.append(String.format(Locale.ROOT,
+                "%n  %-40s %-12s count=%d errors=%d mean=%.3f p50=%.3f p90=%.3f p99=%.3f max=%.3f",
+                stats.getOperation(), stats.getTable(), stats.getCount(), stats.getErrors(),
+                latency.getMeanMillis(), latency.getPercentileMillis(50), latency.getPercentileMillis(90),
+                latency.getPercentileMillis(99), latency.getMaxMillis()));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Append a snapshot of every operation to a file, one JSON object per line
+     * @param file destination (parent directories are created)
+     */
+    public static void dumpTo(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        String timestamp = Instant.now().toString();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (OperationStats stats : getAll()) {
+                LatencyHistogram latency = stats.getLatency();
+                writer.write(String.format(Locale.ROOT,
+                    "{\"ts\":\"%s\",\"op\":\"%s\",\"table\":\"%s\",\"count\":%d,\"errors\":%d,"
+                        + "\"mean_ms\":%.3f,\"p50_ms\":%.3f,\"p90_ms\":%.3f,\"p99_ms\":%.3f,\"p999_ms\":%.3f,\"max_ms\":%.3f}",
+                    timestamp, json(stats.getOperation()), json(stats.getTable()), stats.getCount(), stats.getErrors(),
+                    latency.getMeanMillis(), latency.getPercentileMillis(50), latency.getPercentileMillis(90),
+                    latency.getPercentileMillis(99), latency.getPercentileMillis(99.9), latency.getMaxMillis()));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static String json(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        JsonLinesFormatter.escape(escaped, value);
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,129 @@
+package com.codeup.novabook.Models.DAO;
+
+import com.codeup.novabook.Models.Entity.Book;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of books, looked up by id or by ISBN
+ *
+ * Entries are kept in access order and the least recently used book is
+ * evicted once maxSize is exceeded. The cache stores its own copies, so
+ * callers can modify the books they get back without touching the cache.
+ * All methods are synchronized; BookDAO keeps one shared instance and
+ * writes through it on agregar/actualizar/eliminar.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public class BookCache {
+
+    private final int maxSize;
+    private final Map<String, Integer> idsByIsbn = new HashMap<>();
+    private final LinkedHashMap<Integer, Book> booksById;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public BookCache(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        this.booksById = new LinkedHashMap<Integer, Book>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Book> eldest) {
+                if (size() > BookCache.this.maxSize) {
+                    idsByIsbn.remove(eldest.getValue().getIsbn());
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return a copy of the cached book, or null on a miss
+     */
+    public synchronized Book getById(int id) {
+        Book book = booksById.get(id);
+        if (book == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return copy(book);
+    }
+
+    /**
+     * @return a copy of the cached book, or null on a miss
+     */
+    public synchronized Book getByIsbn(String isbn) {
+        Integer id = isbn != null ? idsByIsbn.get(isbn) : null;
+        if (id == null) {
+            misses++;
+            return null;
+        }
+        return getById(id);
+    }
+
+    /**
+     * Add or replace a book (a copy is stored)
+     */
+    public synchronized void put(Book book) {
+        if (book == null || book.getId() <= 0 || maxSize == 0) {
+            return;
+        }
+        Book previous = booksById.get(book.getId());
+        if (previous != null && previous.getIsbn() != null) {
+            idsByIsbn.remove(previous.getIsbn());
+        }
+        if (book.getIsbn() != null) {
+            idsByIsbn.put(book.getIsbn(), book.getId());
+        }
+        booksById.put(book.getId(), copy(book));
+    }
+
+    public synchronized void remove(int id) {
+        Book removed = booksById.remove(id);
+        if (removed != null && removed.getIsbn() != null) {
+            idsByIsbn.remove(removed.getIsbn());
+        }
+    }
+
+    public synchronized void clear() {
+        booksById.clear();
+        idsByIsbn.clear();
+    }
+
+    public synchronized int size() {
+        return booksById.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Get cache statistics (for debugging)
+     * @return String with size, hits, misses, hit ratio and evictions
+     */
+    public synchronized String getStats() {
+        long lookups = hits + misses;
+        return String.format("Book cache size: %d/%d, hits: %d, misses: %d, hit ratio: %.1f%%, evictions: %d",
+            booksById.size(), maxSize, hits, misses,
+            lookups > 0 ? hits * 100.0 / lookups : 0.0, evictions);
+    }
+
+    private static Book copy(Book book) {
+        return new Book(book.getId(), book.getTitulo(), book.getAutor(), book.getIsbn(),
+                book.getAnioPublicacion(), book.isDisponible(), book.getFechaAlta());
+    }
+}
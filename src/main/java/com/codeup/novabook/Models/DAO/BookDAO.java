@@ -10,12 +10,20 @@ package com.codeup.novabook.Models.DAO;
  */
 import com.codeup.novabook.Models.Connection.ConnectionDB;
 import com.codeup.novabook.Models.Entity.Book;
+import com.codeup.novabook.Utils.ConfigManager;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class BookDAO {
 
+    // Shared by every BookDAO instance so views, reports and LoanDAO see the same entries
+    private static final BookCache CACHE = new BookCache(ConfigManager.getInstance().getBookCacheSize());
+    private static final BookSearchIndex SEARCH_INDEX = new BookSearchIndex();
+
     public void agregar(Book libro) throws SQLException {
         String sql = "INSERT INTO Libro (titulo, autor, isbn, anio_publicacion, disponible) VALUES (?, ?, ?, ?, ?)";
         try (Connection conn = ConnectionDB.getConnection();
@@ -31,9 +39,16 @@ public class BookDAO {
             ResultSet rs = ps.getGeneratedKeys();
             if (rs.next()) libro.setId(rs.getInt(1));
         }
+        CACHE.put(libro);
+        SEARCH_INDEX.put(libro);
     }
 
     public Book obtenerPorId(int id) throws SQLException {
+        Book cached = CACHE.getById(id);
+        if (cached != null) {
+            return cached;
+        }
+
         String sql = "SELECT * FROM Libro WHERE id = ?";
         try (Connection conn = ConnectionDB.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -42,15 +57,36 @@ public class BookDAO {
             ResultSet rs = ps.executeQuery();
 
             if (rs.next()) {
-                return new Book(
-                        rs.getInt("id"),
-                        rs.getString("titulo"),
-                        rs.getString("autor"),
-                        rs.getString("isbn"),
-                        rs.getInt("anio_publicacion"),
-                        rs.getBoolean("disponible"),
-                        rs.getTimestamp("fecha_alta").toLocalDateTime()
-                );
+                Book libro = mapearLibro(rs);
+                CACHE.put(libro);
+                return libro;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find a book by ISBN, served from the cache when possible
+     * @param isbn ISBN to look up
+     * @return the book, or null if no book has that ISBN
+     */
+    public Book obtenerPorIsbn(String isbn) throws SQLException {
+        Book cached = CACHE.getByIsbn(isbn);
+        if (cached != null) {
+            return cached;
+        }
+
+        String sql = "SELECT * FROM Libro WHERE isbn = ?";
+        try (Connection conn = ConnectionDB.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, isbn);
+            ResultSet rs = ps.executeQuery();
+
+            if (rs.next()) {
+                Book libro = mapearLibro(rs);
+                CACHE.put(libro);
+                return libro;
             }
         }
         return null;
@@ -64,21 +100,130 @@ public class BookDAO {
              ResultSet rs = st.executeQuery(sql)) {
 
             while (rs.next()) {
-                Book libro = new Book(
-                        rs.getInt("id"),
-                        rs.getString("titulo"),
-                        rs.getString("autor"),
-                        rs.getString("isbn"),
-                        rs.getInt("anio_publicacion"),
-                        rs.getBoolean("disponible"),
-                        rs.getTimestamp("fecha_alta").toLocalDateTime()
-                );
-                lista.add(libro);
+                lista.add(mapearLibro(rs));
             }
         }
         return lista;
     }
 
+    /**
+     * Keyset page of books ordered by id
+     * @param despuesDeId cursor: id of the last book of the previous page (0 for the first page)
+     * @param limite maximum number of books in the page
+     * @param filtro optional text matched against title, author and ISBN (null or empty for none)
+     * @return page of books after the cursor
+     */
+    public Page<Book> listarPagina(int despuesDeId, int limite, String filtro) throws SQLException {
+        boolean filtrar = filtro != null && !filtro.trim().isEmpty();
+        String sql = "SELECT * FROM Libro WHERE id > ?"
+                + (filtrar ? " AND (titulo LIKE ? ESCAPE '\\\\' OR autor LIKE ? ESCAPE '\\\\' OR isbn LIKE ? ESCAPE '\\\\')" : "")
+                + " ORDER BY id LIMIT ?";
+        try (Connection conn = ConnectionDB.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            ps.setInt(i++, despuesDeId);
+            if (filtrar) {
+                String patron = "%" + escaparLike(filtro.trim()) + "%";
+                ps.setString(i++, patron);
+                ps.setString(i++, patron);
+                ps.setString(i++, patron);
+            }
+            ps.setInt(i, limite + 1);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return leerPagina(rs, limite);
+            }
+        }
+    }
+
+    /**
+     * Keyset page of available books for type-ahead pickers, ordered by id.
+     * Served by idx_libro_disponible (its entries are ordered by id within each value),
+     * so a page costs the same however large the catalog is.
+     * @param despuesDeId cursor: id of the last book of the previous page (0 for the first page)
+     * @param limite maximum number of books in the page
+     * @param prefijo optional text the title, author or ISBN must start with (null or empty for none)
+     * @return page of available books after the cursor
+     */
+    public Page<Book> listarDisponibles(int despuesDeId, int limite, String prefijo) throws SQLException {
+        boolean filtrar = prefijo != null && !prefijo.trim().isEmpty();
+        String sql = "SELECT * FROM Libro WHERE disponible = true AND id > ?"
+                + (filtrar ? " AND (titulo LIKE ? ESCAPE '\\\\' OR autor LIKE ? ESCAPE '\\\\' OR isbn LIKE ? ESCAPE '\\\\')" : "")
+                + " ORDER BY id LIMIT ?";
+        try (Connection conn = ConnectionDB.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            ps.setInt(i++, despuesDeId);
+            if (filtrar) {
+                String patron = escaparLike(prefijo.trim()) + "%";
+                ps.setString(i++, patron);
+                ps.setString(i++, patron);
+                ps.setString(i++, patron);
+            }
+            ps.setInt(i, limite + 1);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return leerPagina(rs, limite);
+            }
+        }
+    }
+
+    /**
+     * Keyset page of books ordered by title (ties broken by id), backed by idx_libro_titulo
+     * @param despuesDeTitulo title of the last book of the previous page (null for the first page)
+     * @param despuesDeId id of the last book of the previous page (ignored for the first page)
+     * @param limite maximum number of books in the page
+     * @param filtro optional text matched against title, author and ISBN (null or empty for none)
+     * @return page of books after the cursor
+     */
+    public Page<Book> listarPaginaPorTitulo(String despuesDeTitulo, int despuesDeId, int limite, String filtro) throws SQLException {
+        boolean filtrar = filtro != null && !filtro.trim().isEmpty();
+        boolean primera = despuesDeTitulo == null;
+        String sql = "SELECT * FROM Libro WHERE "
+                + (primera ? "1 = 1" : "(titulo > ? OR (titulo = ? AND id > ?))")
+                + (filtrar ? " AND (titulo LIKE ? ESCAPE '\\\\' OR autor LIKE ? ESCAPE '\\\\' OR isbn LIKE ? ESCAPE '\\\\')" : "")
+                + " ORDER BY titulo, id LIMIT ?";
+        try (Connection conn = ConnectionDB.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            if (!primera) {
+                ps.setString(i++, despuesDeTitulo);
+                ps.setString(i++, despuesDeTitulo);
+                ps.setInt(i++, despuesDeId);
+            }
+            if (filtrar) {
+                String patron = "%" + escaparLike(filtro.trim()) + "%";
+                ps.setString(i++, patron);
+                ps.setString(i++, patron);
+                ps.setString(i++, patron);
+            }
+            ps.setInt(i, limite + 1);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return leerPagina(rs, limite);
+            }
+        }
+    }
+
+    /**
+     * Stream every book to the handler, ordered by id, without building a List
+     * @param handler callback invoked once per book
+     */
+    public <E extends Exception> void recorrer(RowHandler<Book, E> handler) throws SQLException, E {
+        String sql = "SELECT * FROM Libro ORDER BY id";
+        try (Connection conn = ConnectionDB.getConnection();
+             PreparedStatement ps = ConnectionDB.prepareStreamingStatement(conn, sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                handler.handle(mapearLibro(rs));
+            }
+        }
+    }
+
     public void actualizar(Book libro) throws SQLException {
         String sql = "UPDATE Libro SET titulo=?, autor=?, isbn=?, anio_publicacion=?, disponible=? WHERE id=?";
         try (Connection conn = ConnectionDB.getConnection();
@@ -92,6 +237,8 @@ public class BookDAO {
             ps.setInt(6, libro.getId());
             ps.executeUpdate();
         }
+        CACHE.put(libro);
+        SEARCH_INDEX.put(libro);
     }
 
     public void eliminar(int id) throws SQLException {
@@ -101,6 +248,8 @@ public class BookDAO {
             ps.setInt(1, id);
             ps.executeUpdate();
         }
+        CACHE.remove(id);
+        SEARCH_INDEX.remove(id);
     }
     
     public void insertar(Book libro) throws SQLException {
@@ -108,6 +257,9 @@ public class BookDAO {
     }
     
     public boolean existsByISBN(String isbn) throws SQLException {
+        if (CACHE.getByIsbn(isbn) != null) {
+            return true;
+        }
         String sql = "SELECT COUNT(*) FROM Libro WHERE isbn = ?";
         try (Connection conn = ConnectionDB.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -119,5 +271,199 @@ public class BookDAO {
         }
         return false;
     }
+
+    /**
+     * Find which of the given ISBNs already exist, using chunked IN (...) lookups
+     * @param isbns ISBNs to check
+     * @param tamanoLote maximum number of ISBNs per query
+     * @return set with the ISBNs that are already in the catalog
+     */
+    public Set<String> buscarIsbnExistentes(Collection<String> isbns, int tamanoLote) throws SQLException {
+        Set<String> existentes = new HashSet<>();
+        if (isbns.isEmpty()) {
+            return existentes;
+        }
+
+        List<String> pendientes = new ArrayList<>(isbns);
+        try (Connection conn = ConnectionDB.getConnection()) {
+            for (int desde = 0; desde < pendientes.size(); desde += tamanoLote) {
+                List<String> lote = pendientes.subList(desde, Math.min(desde + tamanoLote, pendientes.size()));
+                String sql = "SELECT isbn FROM Libro WHERE isbn IN (" + marcadores(lote.size()) + ")";
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    int i = 1;
+                    for (String isbn : lote) {
+                        ps.setString(i++, isbn);
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            existentes.add(rs.getString(1));
+                        }
+                    }
+                }
+            }
+        }
+        return existentes;
+    }
+
+    /**
+     * Insert several books with a single JDBC batch inside one transaction.
+     * Either all books are inserted or, on error, none of them.
+     * The generated ids are set on the books.
+     * @param libros books to insert
+     * @return number of books inserted
+     */
+    public int insertarLote(List<Book> libros) throws SQLException {
+        if (libros.isEmpty()) {
+            return 0;
+        }
+
+        String sql = "INSERT INTO Libro (titulo, autor, isbn, anio_publicacion, disponible) VALUES (?, ?, ?, ?, ?)";
+        try (Connection conn = ConnectionDB.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (Book libro : libros) {
+                    ps.setString(1, libro.getTitulo());
+                    ps.setString(2, libro.getAutor());
+                    ps.setString(3, libro.getIsbn());
+                    ps.setInt(4, libro.getAnioPublicacion());
+                    ps.setBoolean(5, libro.isDisponible());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    for (int i = 0; i < libros.size() && rs.next(); i++) {
+                        libros.get(i).setId(rs.getInt(1));
+                    }
+                }
+                conn.commit();
+                for (Book libro : libros) {
+                    SEARCH_INDEX.put(libro);
+                }
+                return libros.size();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Fill the in-memory search index from the whole catalog, streaming the rows.
+     * Does nothing if the index is already loaded or another thread is loading it.
+     */
+    public void cargarIndiceBusqueda() throws SQLException {
+        if (!SEARCH_INDEX.beginLoad()) {
+            return;
+        }
+        llenarIndiceBusqueda();
+    }
+
+    /**
+     * Reload the search index from the catalog so books added, edited, lent or
+     * returned by other clients are picked up. Does nothing if it is not loaded yet.
+     */
+    public void recargarIndiceBusqueda() throws SQLException {
+        if (!SEARCH_INDEX.beginReload()) {
+            return;
+        }
+        llenarIndiceBusqueda();
+    }
+
+    /**
+     * Stream the whole catalog into the search index (after beginLoad or beginReload)
+     */
+    private void llenarIndiceBusqueda() throws SQLException {
+        boolean cargado = false;
+        try {
+            recorrer(SEARCH_INDEX::load);
+            cargado = true;
+        } finally {
+            SEARCH_INDEX.finishLoad(cargado);
+        }
+    }
+
+    /**
+     * Shared search index, kept up to date by every BookDAO write
+     * @return the search index (check isReady() before relying on it)
+     */
+    public static BookSearchIndex getSearchIndex() {
+        return SEARCH_INDEX;
+    }
+
+    /**
+     * Record an availability change made by a loan write, so the cache and
+     * the search index do not keep showing the old Libro.disponible value
+     * @param id book id
+     * @param disponible new availability
+     */
+    static void actualizarDisponibilidad(int id, boolean disponible) {
+        CACHE.remove(id);
+        SEARCH_INDEX.setDisponible(id, disponible);
+    }
+
+    /**
+     * Shared book cache, for statistics
+     * @return the cache used by every BookDAO
+     */
+    public static BookCache getCache() {
+        return CACHE;
+    }
+
+    /**
+     * Escape the LIKE wildcards (% and _) and the escape character itself, so
+     * user text is matched literally by "LIKE ? ESCAPE '\\'"
+     */
+    static String escaparLike(String texto) {
+        StringBuilder sb = new StringBuilder(texto.length() + 4);
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '%' || c == '_' || c == '\\') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    static String marcadores(int cantidad) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < cantidad; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Read up to limite books; the query fetches one extra row to know if more follow
+     */
+    private Page<Book> leerPagina(ResultSet rs, int limite) throws SQLException {
+        List<Book> lista = new ArrayList<>();
+        boolean hayMas = false;
+        while (rs.next()) {
+            if (lista.size() == limite) {
+                hayMas = true;
+                break;
+            }
+            lista.add(mapearLibro(rs));
+        }
+        int ultimoId = lista.isEmpty() ? 0 : lista.get(lista.size() - 1).getId();
+        return new Page<>(lista, hayMas, ultimoId);
+    }
+
+    private Book mapearLibro(ResultSet rs) throws SQLException {
+        Timestamp fechaAlta = rs.getTimestamp("fecha_alta");
+        return new Book(
+                rs.getInt("id"),
+                rs.getString("titulo"),
+                rs.getString("autor"),
+                rs.getString("isbn"),
+                rs.getInt("anio_publicacion"),
+                rs.getBoolean("disponible"),
+                fechaAlta != null ? fechaAlta.toLocalDateTime() : null
+        );
+    }
 }
 
@@ -0,0 +1,760 @@
+package com.codeup.novabook.Models.DAO;
+
+import com.codeup.novabook.Models.Entity.Book;
+import com.codeup.novabook.Utils.TextNormalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over book title, author and ISBN
+ *
+ * Text is split into words and folded to lower case without accents, so
+ * "garcia marq" finds "García Márquez". Every query word is matched as a
+ * prefix and all words must match. Results are ranked by where the words
+ * matched (title before author before ISBN) and whether they matched a whole
+ * word, then by title. A query made only of one- and two-letter words
+ * needs one of them to match a whole word, so "c" does not scan half the
+ * catalog.
+ *
+ * The index is filled once from the catalog (beginLoad / load / finishLoad)
+ * and then kept up to date by BookDAO on every write. Writes made by other
+ * clients are picked up by reloading it (beginReload / load / finishLoad),
+ * which BooksView does on Refresh. Searches take a read lock and never touch
+ * the database.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public class BookSearchIndex {
+
+    private static final int TITLE = 1;
+    private static final int AUTHOR = 2;
+    private static final int ISBN = 4;
+
+    /**
+     * Shortest query word that is expanded over every word it prefixes
+     */
+    static final int MIN_PREFIX_LENGTH = 3;
+
+    /**
+     * Words of a prefix range inspected to bound a query word's score
+     */
+    private static final int MAX_BOUND_TERMS = 32;
+
+    /**
+     * Every word sets one signature bit per prefix up to this length
+     */
+    private static final int SIGNATURE_PREFIX = 3;
+
+    /**
+     * One indexed book with its words and the fields each word appears in
+     */
+    private static class Document implements Comparable<Document> {
+        final Book book;
+        final int id;
+        final String sortKey;
+        final String[] terms;
+        final int[] fields;
+        final long signature;
+
+        Document(Book book, Map<String, Integer> termFields) {
+            this.book = book;
+            this.id = book.getId();
+            this.sortKey = book.getTitulo() != null ? TextNormalizer.fold(book.getTitulo()) : "";
+            this.terms = new String[termFields.size()];
+            this.fields = new int[termFields.size()];
+            long bits = 0;
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : termFields.entrySet()) {
+                terms[i] = entry.getKey();
+                fields[i] = entry.getValue();
+                for (int length = 1; length <= SIGNATURE_PREFIX; length++) {
+                    bits |= signature(terms[i], length);
+                }
+                i++;
+            }
+            this.signature = bits;
+        }
+
+        /**
+         * @return best score of the query word against this book, 0 if no word starts with it
+         */
+        int score(String token) {
+            int best = 0;
+            for (int i = 0; i < terms.length; i++) {
+                if (terms[i].startsWith(token)) {
+                    int score = fieldWeight(fields[i]) * (terms[i].length() == token.length() ? 2 : 1);
+                    best = Math.max(best, score);
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Title order, the tie-break between books with the same score
+         */
+        @Override
+        public int compareTo(Document other) {
+            int c = sortKey.compareTo(other.sortKey);
+            return c != 0 ? c : Integer.compare(id, other.id);
+        }
+    }
+
+    /**
+     * Books containing one word with the same field weight, in title order
+     * once the index is ready (appended unsorted during the initial load)
+     */
+    private static class Bucket {
+        final int weight;
+        Document[] documents = new Document[0];
+        int size;
+
+        Bucket(int weight) {
+            this.weight = weight;
+        }
+
+        void add(Document document, boolean sorted) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, Math.max(4, size * 2));
+            }
+            int at = size;
+            if (sorted) {
+                at = -Arrays.binarySearch(documents, 0, size, document) - 1;
+                System.arraycopy(documents, at, documents, at + 1, size - at);
+            }
+            documents[at] = document;
+            size++;
+        }
+
+        void remove(Document document, boolean sorted) {
+            int at = -1;
+            if (sorted) {
+                at = Arrays.binarySearch(documents, 0, size, document);
+            } else {
+                for (int i = 0; i < size && at < 0; i++) {
+                    if (documents[i] == document) {
+                        at = i;
+                    }
+                }
+            }
+            if (at < 0) {
+                return;
+            }
+            System.arraycopy(documents, at + 1, documents, at, size - at - 1);
+            documents[--size] = null;
+        }
+    }
+
+    /**
+     * Books containing one word, one bucket per field weight (ISBN, author, title)
+     */
+    private static class Postings {
+        final Bucket[] buckets = {new Bucket(1), new Bucket(2), new Bucket(3)};
+
+        Bucket bucket(int fields) {
+            return buckets[fieldWeight(fields) - 1];
+        }
+
+        int size() {
+            return buckets[0].size + buckets[1].size + buckets[2].size;
+        }
+
+        int maxWeight() {
+            for (int i = buckets.length - 1; i >= 0; i--) {
+                if (buckets[i].size > 0) {
+                    return buckets[i].weight;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Position in one bucket while merging buckets in title order
+     */
+    private static class Cursor implements Comparable<Cursor> {
+        final Bucket bucket;
+        final int bound;
+        int position;
+
+        Cursor(Bucket bucket, int bound) {
+            this.bucket = bucket;
+            this.bound = bound;
+        }
+
+        Document current() {
+            return bucket.documents[position];
+        }
+
+        boolean advance() {
+            return ++position < bucket.size;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return current().compareTo(other.current());
+        }
+    }
+
+    /**
+     * The best {@code capacity} matches seen so far, as a heap with the worst on top
+     */
+    private static class TopK {
+        final int[] scores;
+        final Document[] documents;
+        int size;
+
+        TopK(int capacity) {
+            scores = new int[capacity];
+            documents = new Document[capacity];
+        }
+
+        /**
+         * @return true if a book with this score could still enter the list
+         */
+        boolean accepts(int score, Document document) {
+            return size < scores.length || better(score, document, scores[0], documents[0]);
+        }
+
+        boolean worseThan(int score) {
+            return size == scores.length && scores[0] > score;
+        }
+
+        void offer(int score, Document document) {
+            if (size < scores.length) {
+                scores[size] = score;
+                documents[size] = document;
+                siftUp(size++);
+            } else if (better(score, document, scores[0], documents[0])) {
+                scores[0] = score;
+                documents[0] = document;
+                siftDown(0);
+            }
+        }
+
+        /**
+         * @return copies of the books kept, best first
+         */
+        List<Book> books() {
+            Book[] books = new Book[size];
+            while (size > 0) {
+                books[size - 1] = copy(documents[0].book);
+                size--;
+                scores[0] = scores[size];
+                documents[0] = documents[size];
+                documents[size] = null;
+                siftDown(0);
+            }
+            return Arrays.asList(books);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!better(scores[parent], documents[parent], scores[i], documents[i])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int worst = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                    if (better(scores[worst], documents[worst], scores[child], documents[child])) {
+                        worst = child;
+                    }
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+            Document document = documents[a];
+            documents[a] = documents[b];
+            documents[b] = document;
+        }
+
+        private static boolean better(int score, Document document, int otherScore, Document other) {
+            return score != otherScore ? score > otherScore : document.compareTo(other) < 0;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final Set<Integer> removedWhileLoading = new HashSet<>();
+    private final Set<Integer> registeredWhileLoading = new HashSet<>();
+    private final Set<Integer> loaded = new HashSet<>();
+    private boolean loading;
+    private volatile boolean ready;
+
+    /**
+     * @return true once the whole catalog has been loaded
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Start filling the index. Writes that arrive while it is loading are
+     * applied right away and win over the rows being loaded.
+     * @return false if the index is already loaded or being loaded
+     */
+    public boolean beginLoad() {
+        lock.writeLock().lock();
+        try {
+            if (ready || loading) {
+                return false;
+            }
+            loading = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Start reloading an index that is already loaded, to pick up books added,
+     * edited, lent or returned by other clients. It keeps answering searches
+     * with the current books meanwhile; finishLoad(true) drops the ones that
+     * were not reloaded.
+     * @return false if the index is not loaded yet or is already loading
+     */
+    public boolean beginReload() {
+        lock.writeLock().lock();
+        try {
+            if (!ready || loading) {
+                return false;
+            }
+            loading = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add a book read from the catalog during a load or reload
+     */
+    public void load(Book book) {
+        lock.writeLock().lock();
+        try {
+            int id = book.getId();
+            if (removedWhileLoading.contains(id) || registeredWhileLoading.contains(id)) {
+                return;
+            }
+            Document document = documents.get(id);
+            if (document != null && sameWords(document.book, book)) {
+                // Unchanged words: refresh the other columns in place, no re-indexing
+                document.book.setAnioPublicacion(book.getAnioPublicacion());
+                document.book.setDisponible(book.isDisponible());
+                document.book.setFechaAlta(book.getFechaAlta());
+            } else {
+                unindex(id);
+                index(book);
+            }
+            loaded.add(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finish a load or reload
+     * @param success false to discard what was loaded so the load can be retried
+     *                (a failed reload keeps the books indexed before it)
+     */
+    public void finishLoad(boolean success) {
+        lock.writeLock().lock();
+        try {
+            if (success && ready) {
+                // Books not in the catalog any more were deleted elsewhere
+                for (Integer id : new ArrayList<>(documents.keySet())) {
+                    if (!loaded.contains(id) && !registeredWhileLoading.contains(id)) {
+                        unindex(id);
+                    }
+                }
+            } else if (success) {
+                // Refill every bucket from the catalog in title order: one sort
+                // of the books instead of one per word
+                List<Document> ordered = new ArrayList<>(documents.values());
+                Collections.sort(ordered);
+                for (Postings terms : postings.values()) {
+                    for (Bucket bucket : terms.buckets) {
+                        bucket.size = 0;
+                    }
+                }
+                for (Document document : ordered) {
+                    for (int i = 0; i < document.terms.length; i++) {
+                        postings.get(document.terms[i]).bucket(document.fields[i]).add(document, false);
+                    }
+                }
+                ready = true;
+            } else if (!ready) {
+                postings.clear();
+                documents.clear();
+            }
+            loading = false;
+            removedWhileLoading.clear();
+            registeredWhileLoading.clear();
+            loaded.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add or re-index a book after it was written (ignored until a load has started)
+     */
+    public void put(Book book) {
+        if (book == null || book.getId() <= 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (ready || loading) {
+                unindex(book.getId());
+                index(book);
+                if (loading) {
+                    registeredWhileLoading.add(book.getId());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+            if (loading) {
+                removedWhileLoading.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Update the availability of an indexed book without re-indexing its words
+     */
+    public void setDisponible(int id, boolean disponible) {
+        lock.writeLock().lock();
+        try {
+            Document document = documents.get(id);
+            if (document != null) {
+                document.book.setDisponible(disponible);
+                if (loading) {
+                    registeredWhileLoading.add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the books matching every word of the query
+     *
+     * The search is driven by the query word with the fewest books. Its
+     * buckets are read best possible score first and in title order, so the
+     * scan stops as soon as no remaining book can beat the current top results.
+     * Words shorter than MIN_PREFIX_LENGTH only drive the search as whole
+     * words; as extra words they still match as prefixes.
+     *
+     * @param query text typed by the user
+     * @param limite maximum number of books to return
+     * @return copies of the best matching books, best first
+     */
+    public List<Book> search(String query, int limite) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limite <= 0) {
+            return Collections.emptyList();
+        }
+        boolean prefix = false;
+        for (String token : tokens) {
+            prefix |= token.length() >= MIN_PREFIX_LENGTH;
+        }
+
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            // Upper bound of each word's score, and of the whole query
+            Map<String, Integer> bestScores = new HashMap<>();
+            int total = 0;
+            for (String token : tokens) {
+                int best = bestScores.computeIfAbsent(token, this::bestScore);
+                if (best == 0) {
+                    return Collections.emptyList();
+                }
+                total += best;
+            }
+
+            // Driver words: the one with the fewest books, or every word as a
+            // whole word when none is long enough to expand as a prefix
+            List<String> drivers = new ArrayList<>(bestScores.keySet());
+            if (prefix) {
+                String driver = null;
+                int driverCount = Integer.MAX_VALUE;
+                drivers.sort(Comparator.comparingInt(String::length).reversed());
+                for (String token : drivers) {
+                    if (token.length() < MIN_PREFIX_LENGTH) {
+                        continue;
+                    }
+                    int count = 0;
+                    for (Iterator<Postings> it = prefixRange(token).values().iterator(); it.hasNext() && count < driverCount; ) {
+                        count += it.next().size();
+                    }
+                    if (count < driverCount) {
+                        driver = token;
+                        driverCount = count;
+                    }
+                }
+                drivers = Collections.singletonList(driver);
+            }
+
+            long mask = 0;
+            for (String token : tokens) {
+                mask |= signature(token, Math.min(token.length(), SIGNATURE_PREFIX));
+            }
+
+            List<Cursor> cursors = new ArrayList<>();
+            int driverTerms = 0;
+            for (String driver : drivers) {
+                int others = total - bestScores.get(driver);
+                NavigableMap<String, Postings> terms = prefix ? prefixRange(driver) : postings.subMap(driver, true, driver, true);
+                for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+                    int exact = entry.getKey().length() == driver.length() ? 2 : 1;
+                    for (Bucket bucket : entry.getValue().buckets) {
+                        if (bucket.size > 0) {
+                            // A whole-word driver can still score a title prefix on a longer word
+                            int driverBound = prefix ? bucket.weight * exact : Math.max(bucket.weight * exact, fieldWeight(TITLE));
+                            cursors.add(new Cursor(bucket, driverBound + others));
+                        }
+                    }
+                    driverTerms++;
+                }
+            }
+            cursors.sort(Comparator.comparingInt((Cursor c) -> c.bound).reversed());
+
+            // A book can sit under several driver words: score it once
+            BitSet seen = driverTerms > 1 ? new BitSet() : null;
+            TopK top = new TopK(Math.min(limite, documents.size()));
+            PriorityQueue<Cursor> merge = new PriorityQueue<>();
+            int next = 0;
+            while (next < cursors.size()) {
+                int bound = cursors.get(next).bound;
+                if (top.worseThan(bound)) {
+                    break;
+                }
+                merge.clear();
+                while (next < cursors.size() && cursors.get(next).bound == bound) {
+                    merge.add(cursors.get(next++));
+                }
+                Cursor cursor = merge.poll();
+                while (cursor != null) {
+                    Document document = cursor.current();
+                    if (ready && !top.accepts(bound, document)) {
+                        // Later books in title order cannot beat the top results either
+                        break;
+                    }
+                    if (seen == null || !seen.get(document.id)) {
+                        if (seen != null) {
+                            seen.set(document.id);
+                        }
+                        int score = score(document, tokens, mask);
+                        if (score > 0) {
+                            top.offer(score, document);
+                        }
+                    }
+                    if (!cursor.advance()) {
+                        cursor = merge.poll();
+                    } else if (!merge.isEmpty() && merge.peek().compareTo(cursor) < 0) {
+                        merge.add(cursor);
+                        cursor = merge.poll();
+                    }
+                }
+            }
+            return top.books();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param mask signature bits of the query words, to reject most books without reading their words
+     * @return total score of the book for every query word, 0 unless all of them match
+     */
+    private static int score(Document document, List<String> tokens, long mask) {
+        if ((document.signature & mask) != mask) {
+            return 0;
+        }
+        int total = 0;
+        for (String token : tokens) {
+            int score = document.score(token);
+            if (score == 0) {
+                return 0;
+            }
+            total += score;
+        }
+        return total;
+    }
+
+    /**
+     * @return highest score the query word can reach against any indexed book
+     */
+    private int bestScore(String token) {
+        int best = 0;
+        int seen = 0;
+        for (Map.Entry<String, Postings> entry : prefixRange(token).entrySet()) {
+            int exact = entry.getKey().length() == token.length() ? 2 : 1;
+            best = Math.max(best, entry.getValue().maxWeight() * exact);
+            // Only the first word of the range can be a whole-word match, so past
+            // it nothing beats a title prefix: stop there or after a few words
+            if (best >= fieldWeight(TITLE) || ++seen == MAX_BOUND_TERMS) {
+                return Math.max(best, fieldWeight(TITLE));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the indexed words starting with the query word
+     */
+    private NavigableMap<String, Postings> prefixRange(String token) {
+        return postings.subMap(token, true, token + Character.MAX_VALUE, false);
+    }
+
+    private void index(Book book) {
+        Map<String, Integer> termFields = new LinkedHashMap<>();
+        addTerms(termFields, book.getTitulo(), TITLE);
+        addTerms(termFields, book.getAutor(), AUTHOR);
+        addTerms(termFields, book.getIsbn(), ISBN);
+        if (book.getIsbn() != null) {
+            // Also index the ISBN without dashes so it can be typed either way
+            String compact = String.join("", tokenize(book.getIsbn()));
+            if (!compact.isEmpty()) {
+                termFields.merge(compact, ISBN, (a, b) -> a | b);
+            }
+        }
+
+        Document document = new Document(copy(book), termFields);
+        documents.put(book.getId(), document);
+        for (int i = 0; i < document.terms.length; i++) {
+            postings.computeIfAbsent(document.terms[i], t -> new Postings())
+                    .bucket(document.fields[i]).add(document, ready);
+        }
+    }
+
+    private void unindex(int id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (int i = 0; i < document.terms.length; i++) {
+            Postings terms = postings.get(document.terms[i]);
+            if (terms != null) {
+                terms.bucket(document.fields[i]).remove(document, ready);
+                if (terms.size() == 0) {
+                    postings.remove(document.terms[i]);
+                }
+            }
+        }
+    }
+
+    private static boolean sameWords(Book a, Book b) {
+        return Objects.equals(a.getTitulo(), b.getTitulo()) && Objects.equals(a.getAutor(), b.getAutor())
+                && Objects.equals(a.getIsbn(), b.getIsbn());
+    }
+
+    private static void addTerms(Map<String, Integer> termFields, String text, int field) {
+        for (String term : tokenize(text)) {
+            termFields.merge(term, field, (a, b) -> a | b);
+        }
+    }
+
+    /**
+     * One bit of a 64-bit signature for the first {@code length} characters of a word
+     */
+    private static long signature(String word, int length) {
+        if (word.length() < length) {
+            return 0;
+        }
+        int hash = length;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + word.charAt(i);
+        }
+        return 1L << (hash ^ (hash >>> 7));
+    }
+
+    private static int fieldWeight(int fields) {
+        if ((fields & TITLE) != 0) {
+            return 3;
+        }
+        return (fields & AUTHOR) != 0 ? 2 : 1;
+    }
+
+    /**
+     * Split text into lower-case, accent-free words
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String folded = TextNormalizer.fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean word = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static Book copy(Book book) {
+        return new Book(book.getId(), book.getTitulo(), book.getAutor(), book.getIsbn(),
+                book.getAnioPublicacion(), book.isDisponible(), book.getFechaAlta());
+    }
+}
@@ -0,0 +1,59 @@
+package com.codeup.novabook.Models.DAO;
+
+import com.codeup.novabook.Utils.ConfigManager;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Late-return fine policy: loan.fine.per.day for every day past loan.period.days.
+ * The same rule is applied in SQL by LoanDAO.recalcularMultas, so both must stay in step.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public class FineCalculator {
+
+    private final int diasPrestamo;
+    private final BigDecimal multaPorDia;
+
+    public FineCalculator(int diasPrestamo, double multaPorDia) {
+        this.diasPrestamo = diasPrestamo;
+        this.multaPorDia = BigDecimal.valueOf(multaPorDia);
+    }
+
+    /**
+     * @return a calculator using loan.period.days and loan.fine.per.day
+     */
+    public static FineCalculator desdeConfiguracion() {
+        ConfigManager config = ConfigManager.getInstance();
+        return new FineCalculator(config.getLoanPeriodDays(), config.getFinePerDay());
+    }
+
+    public int getDiasPrestamo() {
+        return diasPrestamo;
+    }
+
+    public BigDecimal getMultaPorDia() {
+        return multaPorDia;
+    }
+
+    /**
+     * Days between the end of the loan period and the given date (never negative)
+     */
+    public long diasDeRetraso(LocalDate fechaPrestamo, LocalDate fecha) {
+        LocalDate vencimiento = fechaPrestamo.plusDays(diasPrestamo);
+        return Math.max(0, ChronoUnit.DAYS.between(vencimiento, fecha));
+    }
+
+    public BigDecimal calcularMulta(long diasRetraso) {
+        return multaPorDia.multiply(BigDecimal.valueOf(diasRetraso)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Fine accrued by a loan made on fechaPrestamo and still open (or returned) on fecha
+     */
+    public BigDecimal multaAl(LocalDate fechaPrestamo, LocalDate fecha) {
+        return calcularMulta(diasDeRetraso(fechaPrestamo, fecha));
+    }
+}
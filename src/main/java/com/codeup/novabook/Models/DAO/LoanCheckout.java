@@ -0,0 +1,48 @@
+package com.codeup.novabook.Models.DAO;
+
+import com.codeup.novabook.Models.Entity.Loan;
+
+/**
+ * Outcome of one loan in a batch checkout
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public class LoanCheckout {
+
+    public enum Estado {
+        /** The loan was created; the loan carries its new id */
+        PRESTADO,
+        /** The book was already lent (or does not exist); no loan created */
+        NO_DISPONIBLE,
+        /** The transaction of this loan's chunk failed and was rolled back */
+        ERROR
+    }
+
+    private final Loan prestamo;
+    private final Estado estado;
+
+    public LoanCheckout(Loan prestamo, Estado estado) {
+        this.prestamo = prestamo;
+        this.estado = estado;
+    }
+
+    public Loan getPrestamo() {
+        return prestamo;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    /**
+     * @return true if the loan was created
+     */
+    public boolean isPrestado() {
+        return estado == Estado.PRESTADO;
+    }
+
+    @Override
+    public String toString() {
+        return "LoanCheckout{prestamoId=" + prestamo.getId() + ", estado=" + estado + "}";
+    }
+}
@@ -0,0 +1,78 @@
+package com.codeup.novabook.Models.DAO;
+
+import java.time.LocalDate;
+
+/**
+ * Filter for loan listings, turned into a parameterised WHERE clause by LoanDAO
+ *
+ * Every criterion is optional; an empty criteria object matches all loans.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public class LoanCriteria {
+
+    public enum Estado {
+        TODOS,
+        ACTIVOS,
+        DEVUELTOS,
+        VENCIDOS
+    }
+
+    private Estado estado = Estado.TODOS;
+    private LocalDate desde;
+    private LocalDate hasta;
+    private int socioId;
+    private int libroId;
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public void setEstado(Estado estado) {
+        this.estado = estado != null ? estado : Estado.TODOS;
+    }
+
+    /**
+     * First loan date included (null for no lower bound)
+     */
+    public LocalDate getDesde() {
+        return desde;
+    }
+
+    public void setDesde(LocalDate desde) {
+        this.desde = desde;
+    }
+
+    /**
+     * Last loan date included (null for no upper bound)
+     */
+    public LocalDate getHasta() {
+        return hasta;
+    }
+
+    public void setHasta(LocalDate hasta) {
+        this.hasta = hasta;
+    }
+
+    /**
+     * Partner id (0 for any partner)
+     */
+    public int getSocioId() {
+        return socioId;
+    }
+
+    public void setSocioId(int socioId) {
+        this.socioId = socioId;
+    }
+
+    /**
+     * Book id (0 for any book)
+     */
+    public int getLibroId() {
+        return libroId;
+    }
+
+    public void setLibroId(int libroId) {
+        this.libroId = libroId;
+    }
+}
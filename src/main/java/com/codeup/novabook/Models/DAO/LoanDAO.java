@@ -6,10 +6,16 @@ import com.codeup.novabook.Models.Entity.Book;
 import com.codeup.novabook.Models.Entity.Partner;
 import com.codeup.novabook.Utils.AppLogger;
 import com.codeup.novabook.Utils.ConfigManager;
+import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -22,40 +28,70 @@ import java.util.logging.Logger;
 public class LoanDAO {
     
     private static final Logger LOGGER = AppLogger.getLogger(LoanDAO.class);
+    
+    /**
+     * Loan joined with its book and partner, so list methods build the whole
+     * object graph in one round trip instead of 2N+1 queries
+     */
+    private static final String SELECT_PRESTAMO_COMPLETO =
+            "SELECT p.id, p.fecha_prestamo, p.fecha_devolucion, p.devuelto, " +
+            "l.id AS libro_id, l.titulo AS libro_titulo, l.autor AS libro_autor, l.isbn AS libro_isbn, " +
+            "l.anio_publicacion AS libro_anio_publicacion, l.disponible AS libro_disponible, l.fecha_alta AS libro_fecha_alta, " +
+            "s.id AS socio_id, s.nombre AS socio_nombre, s.direccion AS socio_direccion, s.telefono AS socio_telefono, " +
+            "s.email AS socio_email, s.activo AS socio_activo, s.fecha_registro AS socio_fecha_registro " +
+            "FROM Prestamo p " +
+            "JOIN Libro l ON p.libro_id = l.id " +
+            "JOIN Socio s ON p.socio_id = s.id";
+    
+    // Active loans by due date, shared so every LoanDAO write keeps it current
+    private static final OverdueTracker OVERDUE_TRACKER = crearSeguimientoVencimientos();
+    
+    // Flips Libro.disponible only if the book is still free; 0 rows means it is already lent
+    private static final String RESERVAR_LIBRO =
+            "UPDATE Libro SET disponible = FALSE WHERE id = ? AND disponible = TRUE";
+    
+    private static final String INSERTAR_PRESTAMO =
+            "INSERT INTO Prestamo (libro_id, socio_id, fecha_prestamo, fecha_devolucion, devuelto) VALUES (?, ?, ?, ?, ?)";
+    
     private final BookDAO bookDAO;
-    private final PartnerDAO partnerDAO;
     private final ConfigManager config;
+    private final FineCalculator multas;
 
     public LoanDAO() {
         this.bookDAO = new BookDAO();
-        this.partnerDAO = new PartnerDAO();
         this.config = ConfigManager.getInstance();
+        this.multas = FineCalculator.desdeConfiguracion();
     }
 
     /**
      * Create new loan with transaction support
-     * This is a critical operation that requires atomicity
+     * This is a critical operation that requires atomicity: the book is claimed
+     * with a conditional update on the same connection as the insert, so two
+     * desks lending the same copy cannot both succeed
+     * @throws SQLException if the book is already on loan or the insert fails
      */
     public void agregar(Loan prestamo) throws SQLException {
-        String sql = "INSERT INTO Prestamo (libro_id, socio_id, fecha_prestamo, fecha_devolucion, devuelto) VALUES (?, ?, ?, ?, ?)";
+        long inicio = System.nanoTime();
         Connection conn = null;
         
         try {
             conn = ConnectionDB.getConnection();
             conn.setAutoCommit(false); // Start transaction
             
-            LOGGER.info("Creating new loan for book ID: " + prestamo.getLibro().getId() + ", partner ID: " + prestamo.getSocio().getId());
+            AppLogger.log(LOGGER, Level.INFO, "Creating new loan for book ID: {0,number,#}, partner ID: {1,number,#}",
+                prestamo.getLibro().getId(), prestamo.getSocio().getId());
             
-            try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            // Claim the book; the row lock makes concurrent checkouts of the same copy wait here
+            try (PreparedStatement ps = conn.prepareStatement(RESERVAR_LIBRO)) {
                 ps.setInt(1, prestamo.getLibro().getId());
-                ps.setInt(2, prestamo.getSocio().getId());
-                ps.setDate(3, Date.valueOf(prestamo.getFechaPrestamo()));
-                if (prestamo.getFechaDevolucion() != null) {
-                    ps.setDate(4, Date.valueOf(prestamo.getFechaDevolucion()));
-                } else {
-                    ps.setNull(4, Types.DATE);
+                if (ps.executeUpdate() == 0) {
+                    conn.rollback();
+                    throw new SQLException("Book is not available for loan (ID: " + prestamo.getLibro().getId() + ")");
                 }
-                ps.setBoolean(5, prestamo.isDevuelto());
+            }
+            
+            try (PreparedStatement ps = conn.prepareStatement(INSERTAR_PRESTAMO, Statement.RETURN_GENERATED_KEYS)) {
+                asignarParametrosInsert(ps, prestamo);
                 
                 int rowsAffected = ps.executeUpdate();
                 
@@ -65,23 +101,22 @@ public class LoanDAO {
                         prestamo.setId(rs.getInt(1));
                     }
                     
-                    // Mark book as unavailable - this should be done by database trigger
-                    // But we keep it for redundancy
+                    conn.commit(); // Commit transaction
+                    
                     Book libro = prestamo.getLibro();
                     libro.setDisponible(false);
-                    bookDAO.actualizar(libro);
-                    
-                    conn.commit(); // Commit transaction
+                    BookDAO.actualizarDisponibilidad(libro.getId(), false);
+                    OVERDUE_TRACKER.registrar(prestamo);
                     
                     // Log successful operation
                     AppLogger.logBusinessOperation("LOAN_CREATED", 
                         "Loan ID: " + prestamo.getId(), 
                         "Book: " + libro.getTitulo() + ", Partner: " + prestamo.getSocio().getNombre());
                     
-                    AppLogger.logDatabaseOperation("INSERT", "Prestamo", true, 
+                    AppLogger.logDatabaseOperation("INSERT", "Prestamo", true, System.nanoTime() - inicio,
                         "New loan created with ID: " + prestamo.getId());
                     
-                    LOGGER.info("Loan created successfully with ID: " + prestamo.getId());
+                    AppLogger.log(LOGGER, Level.INFO, "Loan created successfully with ID: {0,number,#}", prestamo.getId());
                     
                 } else {
                     conn.rollback();
@@ -100,7 +135,7 @@ public class LoanDAO {
                 }
             }
             
-            AppLogger.logDatabaseOperation("INSERT", "Prestamo", false, e.getMessage());
+            AppLogger.logDatabaseOperation("INSERT", "Prestamo", false, System.nanoTime() - inicio, e.getMessage());
             AppLogger.logError("LoanDAO", "Failed to create loan", e);
             throw e;
             
@@ -116,8 +151,20 @@ public class LoanDAO {
         }
     }
 
+    private static void asignarParametrosInsert(PreparedStatement ps, Loan prestamo) throws SQLException {
+        ps.setInt(1, prestamo.getLibro().getId());
+        ps.setInt(2, prestamo.getSocio().getId());
+        ps.setDate(3, Date.valueOf(prestamo.getFechaPrestamo()));
+        if (prestamo.getFechaDevolucion() != null) {
+            ps.setDate(4, Date.valueOf(prestamo.getFechaDevolucion()));
+        } else {
+            ps.setNull(4, Types.DATE);
+        }
+        ps.setBoolean(5, prestamo.isDevuelto());
+    }
+
     public Loan obtenerPorId(int id) throws SQLException {
-        String sql = "SELECT * FROM Prestamo WHERE id = ?";
+        String sql = SELECT_PRESTAMO_COMPLETO + " WHERE p.id = ?";
         try (Connection conn = ConnectionDB.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
@@ -125,158 +172,593 @@ public class LoanDAO {
             ResultSet rs = ps.executeQuery();
 
             if (rs.next()) {
-                Book libro = bookDAO.obtenerPorId(rs.getInt("libro_id"));
-                Partner socio = partnerDAO.obtenerPorId(rs.getInt("socio_id"));
-
-                LocalDate fechaDevolucion = null;
-                Date sqlDate = rs.getDate("fecha_devolucion");
-                if (sqlDate != null) {
-                    fechaDevolucion = sqlDate.toLocalDate();
-                }
-
-                return new Loan(
-                        rs.getInt("id"),
-                        libro,
-                        socio,
-                        rs.getDate("fecha_prestamo").toLocalDate(),
-                        fechaDevolucion,
-                        rs.getBoolean("devuelto")
-                );
+                return mapearPrestamo(rs);
             }
         }
         return null;
     }
 
     public List<Loan> listar() throws SQLException {
-        List<Loan> lista = new ArrayList<>();
-        String sql = "SELECT * FROM Prestamo ORDER BY fecha_prestamo DESC";
+        String sql = SELECT_PRESTAMO_COMPLETO + " ORDER BY p.fecha_prestamo DESC";
         try (Connection conn = ConnectionDB.getConnection();
              Statement st = conn.createStatement();
              ResultSet rs = st.executeQuery(sql)) {
 
-            while (rs.next()) {
-                Book libro = bookDAO.obtenerPorId(rs.getInt("libro_id"));
-                Partner socio = partnerDAO.obtenerPorId(rs.getInt("socio_id"));
-
-                LocalDate fechaDevolucion = null;
-                Date sqlDate = rs.getDate("fecha_devolucion");
-                if (sqlDate != null) {
-                    fechaDevolucion = sqlDate.toLocalDate();
-                }
-
-                Loan prestamo = new Loan(
-                        rs.getInt("id"),
-                        libro,
-                        socio,
-                        rs.getDate("fecha_prestamo").toLocalDate(),
-                        fechaDevolucion,
-                        rs.getBoolean("devuelto")
-                );
-                lista.add(prestamo);
-            }
+            return mapearPrestamos(rs);
         }
-        return lista;
     }
 
     public List<Loan> listarPrestamosActivos() throws SQLException {
-        List<Loan> lista = new ArrayList<>();
-        String sql = "SELECT * FROM Prestamo WHERE devuelto = false ORDER BY fecha_prestamo DESC";
+        String sql = SELECT_PRESTAMO_COMPLETO + " WHERE p.devuelto = false ORDER BY p.fecha_prestamo DESC";
         try (Connection conn = ConnectionDB.getConnection();
              Statement st = conn.createStatement();
              ResultSet rs = st.executeQuery(sql)) {
 
-            while (rs.next()) {
-                Book libro = bookDAO.obtenerPorId(rs.getInt("libro_id"));
-                Partner socio = partnerDAO.obtenerPorId(rs.getInt("socio_id"));
-
-                Loan prestamo = new Loan(
-                        rs.getInt("id"),
-                        libro,
-                        socio,
-                        rs.getDate("fecha_prestamo").toLocalDate(),
-                        null, // No hay fecha de devolución aún
-                        rs.getBoolean("devuelto")
-                );
-                lista.add(prestamo);
-            }
+            return mapearPrestamos(rs);
         }
-        return lista;
     }
 
     public List<Loan> listarPrestamosPorSocio(int socioId) throws SQLException {
-        List<Loan> lista = new ArrayList<>();
-        String sql = "SELECT * FROM Prestamo WHERE socio_id = ? ORDER BY fecha_prestamo DESC";
+        String sql = SELECT_PRESTAMO_COMPLETO + " WHERE p.socio_id = ? ORDER BY p.fecha_prestamo DESC";
         try (Connection conn = ConnectionDB.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setInt(1, socioId);
-            ResultSet rs = ps.executeQuery();
+            try (ResultSet rs = ps.executeQuery()) {
+                return mapearPrestamos(rs);
+            }
+        }
+    }
 
-            while (rs.next()) {
-                Book libro = bookDAO.obtenerPorId(rs.getInt("libro_id"));
-                Partner socio = partnerDAO.obtenerPorId(rs.getInt("socio_id"));
+    /**
+     * Loans not returned within loan.period.days, oldest first.
+     * Read from the overdue tracker once it is loaded, from the database otherwise.
+     * The tracker sees this client's writes right away and other clients' writes
+     * after its nightly reload.
+     */
+    public List<Loan> listarPrestamosVencidos() throws SQLException {
+        if (OVERDUE_TRACKER.isReady()) {
+            return OVERDUE_TRACKER.vencidos(LocalDate.now());
+        }
+        String sql = SELECT_PRESTAMO_COMPLETO + " WHERE p.devuelto = false AND p.fecha_prestamo < DATE_SUB(CURDATE(), INTERVAL ? DAY) ORDER BY p.fecha_prestamo ASC";
+        try (Connection conn = ConnectionDB.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
 
-                LocalDate fechaDevolucion = null;
-                Date sqlDate = rs.getDate("fecha_devolucion");
-                if (sqlDate != null) {
-                    fechaDevolucion = sqlDate.toLocalDate();
-                }
+            ps.setInt(1, config.getLoanPeriodDays());
+            try (ResultSet rs = ps.executeQuery()) {
+                return mapearPrestamos(rs);
+            }
+        }
+    }
+
+    /**
+     * Count total, active, returned and overdue loans with a single aggregate
+     * query (no rows are transferred), cheap enough to refresh periodically
+     * @return loan counters
+     */
+    public LoanStatistics obtenerEstadisticas() throws SQLException {
+        String sql = "SELECT COUNT(*) AS total, " +
+                "COALESCE(SUM(devuelto = false), 0) AS activos, " +
+                "COALESCE(SUM(devuelto = true), 0) AS devueltos, " +
+                "COALESCE(SUM(devuelto = false AND fecha_prestamo < DATE_SUB(CURDATE(), INTERVAL ? DAY)), 0) AS vencidos " +
+                "FROM Prestamo";
+        try (Connection conn = ConnectionDB.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
 
-                Loan prestamo = new Loan(
-                        rs.getInt("id"),
-                        libro,
-                        socio,
-                        rs.getDate("fecha_prestamo").toLocalDate(),
-                        fechaDevolucion,
-                        rs.getBoolean("devuelto")
-                );
-                lista.add(prestamo);
+            ps.setInt(1, config.getLoanPeriodDays());
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return new LoanStatistics(
+                        rs.getLong("total"),
+                        rs.getLong("activos"),
+                        rs.getLong("devueltos"),
+                        rs.getLong("vencidos"));
             }
         }
-        return lista;
     }
 
-    public List<Loan> listarPrestamosVencidos() throws SQLException {
-        List<Loan> lista = new ArrayList<>();
-        String sql = "SELECT * FROM Prestamo WHERE devuelto = false AND fecha_prestamo < DATE_SUB(CURDATE(), INTERVAL 15 DAY) ORDER BY fecha_prestamo ASC";
+    /**
+     * Keyset page of loans, newest first (ordered by id descending)
+     * @param antesDeId cursor: id of the last loan of the previous page (0 for the first page)
+     * @param limite maximum number of loans in the page
+     * @return page of loans older than the cursor
+     */
+    public Page<Loan> listarPagina(int antesDeId, int limite) throws SQLException {
+        return listarPagina(new LoanCriteria(), antesDeId, limite);
+    }
+
+    /**
+     * Keyset page of the loans matching the criteria, newest first.
+     * Status and date filters are applied in SQL (idx_prestamo_devuelto,
+     * idx_prestamo_fecha), so the cost follows the size of the result.
+     * @param criterios filter to apply (status, loan date range, partner, book)
+     * @param antesDeId cursor: id of the last loan of the previous page (0 for the first page)
+     * @param limite maximum number of loans in the page
+     * @return page of matching loans older than the cursor
+     */
+    public Page<Loan> listarPagina(LoanCriteria criterios, int antesDeId, int limite) throws SQLException {
+        StringBuilder where = new StringBuilder();
+        List<Object> parametros = new ArrayList<>();
+
+        switch (criterios.getEstado()) {
+            case ACTIVOS:
+                agregarCondicion(where, "p.devuelto = false");
+                break;
+            case DEVUELTOS:
+                agregarCondicion(where, "p.devuelto = true");
+                break;
+            case VENCIDOS:
+                agregarCondicion(where, "p.devuelto = false AND p.fecha_prestamo < DATE_SUB(CURDATE(), INTERVAL ? DAY)");
+                parametros.add(config.getLoanPeriodDays());
+                break;
+            default:
+                break;
+        }
+        if (criterios.getDesde() != null) {
+            agregarCondicion(where, "p.fecha_prestamo >= ?");
+            parametros.add(Date.valueOf(criterios.getDesde()));
+        }
+        if (criterios.getHasta() != null) {
+            agregarCondicion(where, "p.fecha_prestamo <= ?");
+            parametros.add(Date.valueOf(criterios.getHasta()));
+        }
+        if (criterios.getSocioId() > 0) {
+            agregarCondicion(where, "p.socio_id = ?");
+            parametros.add(criterios.getSocioId());
+        }
+        if (criterios.getLibroId() > 0) {
+            agregarCondicion(where, "p.libro_id = ?");
+            parametros.add(criterios.getLibroId());
+        }
+        if (antesDeId > 0) {
+            agregarCondicion(where, "p.id < ?");
+            parametros.add(antesDeId);
+        }
+
+        String sql = SELECT_PRESTAMO_COMPLETO + where + " ORDER BY p.id DESC LIMIT ?";
         try (Connection conn = ConnectionDB.getConnection();
-             Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
+             PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            while (rs.next()) {
-                Book libro = bookDAO.obtenerPorId(rs.getInt("libro_id"));
-                Partner socio = partnerDAO.obtenerPorId(rs.getInt("socio_id"));
+            int i = 1;
+            for (Object parametro : parametros) {
+                ps.setObject(i++, parametro);
+            }
+            ps.setInt(i, limite + 1);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Loan> lista = new ArrayList<>();
+                boolean hayMas = false;
+                while (rs.next()) {
+                    if (lista.size() == limite) {
+                        hayMas = true;
+                        break;
+                    }
+                    lista.add(mapearPrestamo(rs));
+                }
+                int ultimoId = lista.isEmpty() ? 0 : lista.get(lista.size() - 1).getId();
+                return new Page<>(lista, hayMas, ultimoId);
+            }
+        }
+    }
+
+    private static void agregarCondicion(StringBuilder where, String condicion) {
+        where.append(where.length() == 0 ? " WHERE " : " AND ").append(condicion);
+    }
 
-                Loan prestamo = new Loan(
-                        rs.getInt("id"),
-                        libro,
-                        socio,
-                        rs.getDate("fecha_prestamo").toLocalDate(),
-                        null,
-                        rs.getBoolean("devuelto")
-                );
-                lista.add(prestamo);
+    /**
+     * Stream every loan (with its book and partner) to the handler, newest first,
+     * without building a List
+     * @param handler callback invoked once per loan
+     */
+    public <E extends Exception> void recorrer(RowHandler<Loan, E> handler) throws SQLException, E {
+        String sql = SELECT_PRESTAMO_COMPLETO + " ORDER BY p.id DESC";
+        try (Connection conn = ConnectionDB.getConnection();
+             PreparedStatement ps = ConnectionDB.prepareStreamingStatement(conn, sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                handler.handle(mapearPrestamo(rs));
             }
         }
+    }
+
+    /**
+     * Map every remaining row of a SELECT_PRESTAMO_COMPLETO result set
+     */
+    private List<Loan> mapearPrestamos(ResultSet rs) throws SQLException {
+        List<Loan> lista = new ArrayList<>();
+        while (rs.next()) {
+            lista.add(mapearPrestamo(rs));
+        }
         return lista;
     }
 
-    public void marcarComoDevuelto(int prestamoId) throws SQLException {
-        String sql = "UPDATE Prestamo SET devuelto = true, fecha_devolucion = CURDATE() WHERE id = ?";
-        try (Connection conn = ConnectionDB.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+    /**
+     * Build the full Loan/Book/Partner graph from the current row of a
+     * SELECT_PRESTAMO_COMPLETO result set, without further queries
+     */
+    private Loan mapearPrestamo(ResultSet rs) throws SQLException {
+        Timestamp fechaAlta = rs.getTimestamp("libro_fecha_alta");
+        Book libro = new Book(
+                rs.getInt("libro_id"),
+                rs.getString("libro_titulo"),
+                rs.getString("libro_autor"),
+                rs.getString("libro_isbn"),
+                rs.getInt("libro_anio_publicacion"),
+                rs.getBoolean("libro_disponible"),
+                fechaAlta != null ? fechaAlta.toLocalDateTime() : null
+        );
+
+        Timestamp fechaRegistro = rs.getTimestamp("socio_fecha_registro");
+        Partner socio = new Partner(
+                rs.getInt("socio_id"),
+                rs.getString("socio_nombre"),
+                rs.getString("socio_direccion"),
+                rs.getString("socio_telefono"),
+                rs.getString("socio_email"),
+                rs.getBoolean("socio_activo"),
+                fechaRegistro != null ? fechaRegistro.toLocalDateTime() : null
+        );
+
+        LocalDate fechaDevolucion = null;
+        Date sqlDate = rs.getDate("fecha_devolucion");
+        if (sqlDate != null) {
+            fechaDevolucion = sqlDate.toLocalDate();
+        }
+
+        return new Loan(
+                rs.getInt("id"),
+                libro,
+                socio,
+                rs.getDate("fecha_prestamo").toLocalDate(),
+                fechaDevolucion,
+                rs.getBoolean("devuelto")
+        );
+    }
 
+    /**
+     * Return a loan in one transaction: lock the row, close it with its fine and
+     * let trigger tr_prestamo_update release the book
+     * @param prestamoId loan id
+     * @return what happened, including the days late and the fine charged
+     */
+    public LoanReturn marcarComoDevuelto(int prestamoId) throws SQLException {
+        long inicio = System.nanoTime();
+        LoanReturn resultado;
+        try (Connection conn = ConnectionDB.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                resultado = devolver(conn, prestamoId, LocalDate.now());
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                AppLogger.logDatabaseOperation("UPDATE", "Prestamo", false, System.nanoTime() - inicio, e.getMessage());
+                AppLogger.logError("LoanDAO", "Failed to return loan " + prestamoId, e);
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        
+        AppLogger.logDatabaseOperation("RETURN", "Prestamo", true, System.nanoTime() - inicio,
+            "Loan ID: " + prestamoId + ", outcome: " + resultado.getEstado());
+        if (resultado.isDevuelto()) {
+            BookDAO.actualizarDisponibilidad(resultado.getLibroId(), true);
+            OVERDUE_TRACKER.quitar(prestamoId);
+            AppLogger.logBusinessOperation("LOAN_RETURNED",
+                "Loan ID: " + prestamoId,
+                "Days late: " + resultado.getDiasRetraso() + ", Fine: " + resultado.getMulta());
+        }
+        return resultado;
+    }
+
+    private LoanReturn devolver(Connection conn, int prestamoId, LocalDate fechaDevolucion) throws SQLException {
+        int libroId;
+        LocalDate fechaPrestamo;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT libro_id, fecha_prestamo, devuelto FROM Prestamo WHERE id = ? FOR UPDATE")) {
             ps.setInt(1, prestamoId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return LoanReturn.sinCambios(prestamoId, LoanReturn.Estado.NO_ENCONTRADO);
+                }
+                if (rs.getBoolean("devuelto")) {
+                    return LoanReturn.sinCambios(prestamoId, LoanReturn.Estado.YA_DEVUELTO);
+                }
+                libroId = rs.getInt("libro_id");
+                fechaPrestamo = rs.getDate("fecha_prestamo").toLocalDate();
+            }
+        }
+        
+        long diasRetraso = multas.diasDeRetraso(fechaPrestamo, fechaDevolucion);
+        BigDecimal multa = multas.calcularMulta(diasRetraso);
+        try (PreparedStatement ps = conn.prepareStatement(
+                "UPDATE Prestamo SET devuelto = TRUE, fecha_devolucion = ?, multa_calculada = ? WHERE id = ?")) {
+            ps.setDate(1, Date.valueOf(fechaDevolucion));
+            ps.setBigDecimal(2, multa);
+            ps.setInt(3, prestamoId);
             ps.executeUpdate();
+        }
+        return new LoanReturn(prestamoId, LoanReturn.Estado.DEVUELTO, libroId, fechaDevolucion, diasRetraso, multa);
+    }
 
-            // Obtener el préstamo para marcar el libro como disponible
-            Loan prestamo = obtenerPorId(prestamoId);
-            if (prestamo != null) {
-                Book libro = prestamo.getLibro();
-                libro.setDisponible(true);
-                bookDAO.actualizar(libro);
+    /**
+     * Bring multa_calculada of every open loan up to date, see recalcularMultas(LocalDate)
+     * @return number of loans whose fine changed
+     */
+    public int recalcularMultas() throws SQLException {
+        return recalcularMultas(LocalDate.now());
+    }
+
+    /**
+     * Bring multa_calculada of every open loan up to the fine accrued on the given
+     * day. The fine is computed set-based in the database, and only rows whose
+     * stored fine differs are written: loans past their due date plus any open
+     * loan still carrying a fine. Rows are updated loan.fine.batch.size at a time,
+     * each chunk in its own short transaction, so a nightly run does not hold
+     * locks on every open loan at once.
+     * @param hoy date the fines are computed for
+     * @return number of loans whose fine changed
+     */
+    public int recalcularMultas(LocalDate hoy) throws SQLException {
+        String multa = "ROUND(GREATEST(DATEDIFF(?, fecha_prestamo) - ?, 0) * ?, 2)";
+        String sql = "UPDATE Prestamo SET multa_calculada = " + multa
+                + " WHERE devuelto = false"
+                + " AND (fecha_prestamo < ? OR multa_calculada IS NULL OR multa_calculada > 0)"
+                + " AND NOT (multa_calculada <=> " + multa + ")"
+                + " LIMIT ?";
+        int tamanoLote = Math.max(1, config.getFineBatchSize());
+        int total = 0;
+        long inicio = System.nanoTime();
+        
+        try (Connection conn = ConnectionDB.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            Date fecha = Date.valueOf(hoy);
+            ps.setDate(1, fecha);
+            ps.setInt(2, multas.getDiasPrestamo());
+            ps.setBigDecimal(3, multas.getMultaPorDia());
+            ps.setDate(4, Date.valueOf(hoy.minusDays(multas.getDiasPrestamo())));
+            ps.setDate(5, fecha);
+            ps.setInt(6, multas.getDiasPrestamo());
+            ps.setBigDecimal(7, multas.getMultaPorDia());
+            ps.setInt(8, tamanoLote);
+            
+            // Updated rows drop out of the WHERE clause, so repeat until a chunk comes back short
+            int actualizados;
+            do {
+                actualizados = ps.executeUpdate();
+                total += actualizados;
+            } while (actualizados == tamanoLote);
+        } catch (SQLException e) {
+            AppLogger.logDatabaseOperation("FINE_RECALC", "Prestamo", false, System.nanoTime() - inicio, e.getMessage());
+            throw e;
+        }
+        
+        AppLogger.logDatabaseOperation("FINE_RECALC", "Prestamo", true, System.nanoTime() - inicio,
+            "Fines recalculated for " + hoy + ": " + total + " loans changed");
+        return total;
+    }
+
+    /**
+     * Create many loans, e.g. from the self-service kiosk queue. Loans are processed
+     * in chunks of loan.batch.size, each chunk in one transaction: one batched
+     * conditional update claims the books and one batched insert creates the loans.
+     * A failed chunk is rolled back and reported as ERROR; later chunks still run.
+     * @param prestamos loans with book, partner and loan date set
+     * @return one outcome per loan, in the same order
+     */
+    public List<LoanCheckout> prestarLote(List<Loan> prestamos) throws SQLException {
+        List<LoanCheckout> resultados = new ArrayList<>(prestamos.size());
+        if (prestamos.isEmpty()) {
+            return resultados;
+        }
+        int tamanoLote = Math.max(1, config.getLoanBatchSize());
+        // All chunk events of this batch share one correlation id
+        boolean nuevaCorrelacion = AppLogger.getCorrelationId() == null;
+        if (nuevaCorrelacion) {
+            AppLogger.newCorrelationId();
+        }
+        
+        try (Connection conn = ConnectionDB.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (int desde = 0; desde < prestamos.size(); desde += tamanoLote) {
+                    List<Loan> lote = prestamos.subList(desde, Math.min(desde + tamanoLote, prestamos.size()));
+                    long inicio = System.nanoTime();
+                    try {
+                        resultados.addAll(prestarTramo(conn, lote));
+                        conn.commit();
+                        AppLogger.logEvent("BATCH_CHECKOUT", "Prestamo", System.nanoTime() - inicio, true,
+                            lote.size() + " loans");
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        AppLogger.logEvent("BATCH_CHECKOUT", "Prestamo", System.nanoTime() - inicio, false, e.getMessage());
+                        AppLogger.logError("LoanDAO", "Batch checkout chunk of " + lote.size() + " loans failed", e);
+                        for (Loan prestamo : lote) {
+                            prestamo.setId(0);
+                            resultados.add(new LoanCheckout(prestamo, LoanCheckout.Estado.ERROR));
+                        }
+                    }
+                }
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } finally {
+            if (nuevaCorrelacion) {
+                AppLogger.clearCorrelationId();
+            }
+        }
+        
+        int prestados = 0;
+        for (LoanCheckout resultado : resultados) {
+            if (resultado.isPrestado()) {
+                Book libro = resultado.getPrestamo().getLibro();
+                libro.setDisponible(false);
+                BookDAO.actualizarDisponibilidad(libro.getId(), false);
+                OVERDUE_TRACKER.registrar(resultado.getPrestamo());
+                prestados++;
+            }
+        }
+        AppLogger.logBusinessOperation("LOANS_CREATED_BATCH",
+            prestados + " of " + prestamos.size() + " loans",
+            "Chunk size: " + tamanoLote);
+        return resultados;
+    }
+
+    private List<LoanCheckout> prestarTramo(Connection conn, List<Loan> lote) throws SQLException {
+        int[] reservados;
+        try (PreparedStatement ps = conn.prepareStatement(RESERVAR_LIBRO)) {
+            for (Loan prestamo : lote) {
+                ps.setInt(1, prestamo.getLibro().getId());
+                ps.addBatch();
+            }
+            reservados = ps.executeBatch();
+        }
+        
+        // Only loans whose book was claimed get inserted; a repeated book in the chunk claims 0 rows
+        List<Loan> aceptados = new ArrayList<>();
+        for (int i = 0; i < lote.size(); i++) {
+            if (reservados[i] > 0) {
+                aceptados.add(lote.get(i));
+            }
+        }
+        if (!aceptados.isEmpty()) {
+            try (PreparedStatement ps = conn.prepareStatement(INSERTAR_PRESTAMO, Statement.RETURN_GENERATED_KEYS)) {
+                for (Loan prestamo : aceptados) {
+                    asignarParametrosInsert(ps, prestamo);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    for (int i = 0; i < aceptados.size() && rs.next(); i++) {
+                        aceptados.get(i).setId(rs.getInt(1));
+                    }
+                }
+            }
+        }
+        
+        List<LoanCheckout> resultados = new ArrayList<>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            resultados.add(new LoanCheckout(lote.get(i),
+                reservados[i] > 0 ? LoanCheckout.Estado.PRESTADO : LoanCheckout.Estado.NO_DISPONIBLE));
+        }
+        return resultados;
+    }
+
+    /**
+     * Return many loans, e.g. the nightly drop-box sweep. Ids are processed in
+     * chunks of loan.batch.size, each chunk in one transaction: one locking read
+     * of the chunk and one batched update that closes the open loans with their fine.
+     * A failed chunk is rolled back and reported as ERROR; later chunks still run.
+     * @param prestamoIds loan ids
+     * @return one outcome per id, in the same order
+     */
+    public List<LoanReturn> devolverLote(List<Integer> prestamoIds) throws SQLException {
+        List<LoanReturn> resultados = new ArrayList<>(prestamoIds.size());
+        if (prestamoIds.isEmpty()) {
+            return resultados;
+        }
+        int tamanoLote = Math.max(1, config.getLoanBatchSize());
+        LocalDate hoy = LocalDate.now();
+        // All chunk events of this batch share one correlation id
+        boolean nuevaCorrelacion = AppLogger.getCorrelationId() == null;
+        if (nuevaCorrelacion) {
+            AppLogger.newCorrelationId();
+        }
+        
+        try (Connection conn = ConnectionDB.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (int desde = 0; desde < prestamoIds.size(); desde += tamanoLote) {
+                    List<Integer> lote = prestamoIds.subList(desde, Math.min(desde + tamanoLote, prestamoIds.size()));
+                    long inicio = System.nanoTime();
+                    try {
+                        resultados.addAll(devolverTramo(conn, lote, hoy));
+                        conn.commit();
+                        AppLogger.logEvent("BATCH_RETURN", "Prestamo", System.nanoTime() - inicio, true,
+                            lote.size() + " loans");
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        AppLogger.logEvent("BATCH_RETURN", "Prestamo", System.nanoTime() - inicio, false, e.getMessage());
+                        AppLogger.logError("LoanDAO", "Batch return chunk of " + lote.size() + " loans failed", e);
+                        for (int prestamoId : lote) {
+                            resultados.add(LoanReturn.sinCambios(prestamoId, LoanReturn.Estado.ERROR));
+                        }
+                    }
+                }
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } finally {
+            if (nuevaCorrelacion) {
+                AppLogger.clearCorrelationId();
+            }
+        }
+        
+        int devueltos = 0;
+        for (LoanReturn resultado : resultados) {
+            if (resultado.isDevuelto()) {
+                BookDAO.actualizarDisponibilidad(resultado.getLibroId(), true);
+                OVERDUE_TRACKER.quitar(resultado.getPrestamoId());
+                devueltos++;
             }
         }
+        AppLogger.logBusinessOperation("LOANS_RETURNED_BATCH",
+            devueltos + " of " + prestamoIds.size() + " loans",
+            "Chunk size: " + tamanoLote);
+        return resultados;
+    }
+
+    private List<LoanReturn> devolverTramo(Connection conn, List<Integer> lote, LocalDate fechaDevolucion) throws SQLException {
+        Map<Integer, LoanReturn> abiertos = new HashMap<>();
+        Set<Integer> encontrados = new HashSet<>();
+        String sql = "SELECT id, libro_id, fecha_prestamo, devuelto FROM Prestamo WHERE id IN ("
+                + BookDAO.marcadores(lote.size()) + ") FOR UPDATE";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < lote.size(); i++) {
+                ps.setInt(i + 1, lote.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    encontrados.add(id);
+                    if (!rs.getBoolean("devuelto")) {
+                        long diasRetraso = multas.diasDeRetraso(rs.getDate("fecha_prestamo").toLocalDate(), fechaDevolucion);
+                        abiertos.put(id, new LoanReturn(id, LoanReturn.Estado.DEVUELTO, rs.getInt("libro_id"),
+                                fechaDevolucion, diasRetraso, multas.calcularMulta(diasRetraso)));
+                    }
+                }
+            }
+        }
+        
+        if (!abiertos.isEmpty()) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE Prestamo SET devuelto = TRUE, fecha_devolucion = ?, multa_calculada = ? WHERE id = ?")) {
+                for (LoanReturn devolucion : abiertos.values()) {
+                    ps.setDate(1, Date.valueOf(fechaDevolucion));
+                    ps.setBigDecimal(2, devolucion.getMulta());
+                    ps.setInt(3, devolucion.getPrestamoId());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+        
+        // A repeated id is reported as returned once, then as already returned
+        List<LoanReturn> resultados = new ArrayList<>(lote.size());
+        for (int prestamoId : lote) {
+            LoanReturn devolucion = abiertos.remove(prestamoId);
+            if (devolucion != null) {
+                resultados.add(devolucion);
+            } else if (encontrados.contains(prestamoId)) {
+                resultados.add(LoanReturn.sinCambios(prestamoId, LoanReturn.Estado.YA_DEVUELTO));
+            } else {
+                resultados.add(LoanReturn.sinCambios(prestamoId, LoanReturn.Estado.NO_ENCONTRADO));
+            }
+        }
+        return resultados;
     }
 
     public void actualizar(Loan prestamo) throws SQLException {
@@ -296,6 +778,7 @@ public class LoanDAO {
             ps.setInt(6, prestamo.getId());
             ps.executeUpdate();
         }
+        OVERDUE_TRACKER.registrar(prestamo);
     }
 
     public void eliminar(int id) throws SQLException {
@@ -316,6 +799,97 @@ public class LoanDAO {
                 bookDAO.actualizar(libro);
             }
         }
+        OVERDUE_TRACKER.quitar(id);
+    }
+
+    /**
+     * Fill the overdue tracker with every active loan, streaming the rows, and
+     * start its daily tick. Does nothing if it is already loaded or loading.
+     */
+    public void cargarSeguimientoVencimientos() throws SQLException {
+        if (!OVERDUE_TRACKER.beginLoad()) {
+            return;
+        }
+        cargarPrestamosActivos();
+        OVERDUE_TRACKER.iniciar();
+        AppLogger.log(LOGGER, Level.INFO, "Overdue tracker loaded with {0,number,#} active loans", OVERDUE_TRACKER.size());
+    }
+
+    /**
+     * Reload the overdue tracker from the database so loans created or returned
+     * by other clients are picked up. Does nothing if it is not loaded yet.
+     */
+    public void recargarSeguimientoVencimientos() throws SQLException {
+        if (!OVERDUE_TRACKER.beginReload()) {
+            return;
+        }
+        cargarPrestamosActivos();
+        AppLogger.log(LOGGER, Level.INFO, "Overdue tracker reloaded with {0,number,#} active loans", OVERDUE_TRACKER.size());
+    }
+
+    /**
+     * Stream every active loan into the tracker (after beginLoad or beginReload)
+     */
+    private void cargarPrestamosActivos() throws SQLException {
+        boolean cargado = false;
+        try {
+            String sql = SELECT_PRESTAMO_COMPLETO + " WHERE p.devuelto = false";
+            try (Connection conn = ConnectionDB.getConnection();
+                 PreparedStatement ps = ConnectionDB.prepareStreamingStatement(conn, sql);
+                 ResultSet rs = ps.executeQuery()) {
+
+                while (rs.next()) {
+                    OVERDUE_TRACKER.load(mapearPrestamo(rs));
+                }
+            }
+            cargado = true;
+        } finally {
+            OVERDUE_TRACKER.finishLoad(cargado);
+        }
+    }
+
+    /**
+     * Shared overdue tracker, kept up to date by every LoanDAO write
+     * @return the tracker (check isReady() before relying on it)
+     */
+    public static OverdueTracker getOverdueTracker() {
+        return OVERDUE_TRACKER;
+    }
+
+    private static OverdueTracker crearSeguimientoVencimientos() {
+        OverdueTracker tracker = new OverdueTracker(ConfigManager.getInstance().getLoanPeriodDays());
+        tracker.addListener(new OverdueTracker.Listener() {
+            @Override
+            public void beforeNewDay(LocalDate hoy) {
+                // Pick up checkouts and returns made from other desks before the daily events
+                try {
+                    new LoanDAO().recargarSeguimientoVencimientos();
+                } catch (SQLException e) {
+                    AppLogger.logError("LoanDAO", "Nightly overdue tracker reload failed", e);
+                }
+            }
+
+            @Override
+            public void onDue(List<Loan> prestamos, LocalDate hoy) {
+                AppLogger.logBusinessOperation("LOANS_DUE", prestamos.size() + " loans", "Due on " + hoy);
+            }
+
+            @Override
+            public void onOverdue(List<Loan> prestamos, LocalDate hoy) {
+                AppLogger.logBusinessOperation("LOANS_OVERDUE", prestamos.size() + " loans", "Became overdue by " + hoy);
+            }
+
+            @Override
+            public void onNewDay(LocalDate hoy) {
+                // Every overdue loan owes one more day of fine
+                try {
+                    new LoanDAO().recalcularMultas(hoy);
+                } catch (SQLException e) {
+                    AppLogger.logError("LoanDAO", "Nightly fine recalculation failed", e);
+                }
+            }
+        });
+        return tracker;
     }
 
     public boolean existePrestamoActivoParaLibro(int libroId) throws SQLException {
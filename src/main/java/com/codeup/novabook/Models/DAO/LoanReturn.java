@@ -0,0 +1,90 @@
+package com.codeup.novabook.Models.DAO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Outcome of returning one loan: whether it was closed and the fine charged
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public class LoanReturn {
+
+    public enum Estado {
+        /** The loan was open and is now returned */
+        DEVUELTO,
+        /** The loan had already been returned; nothing changed */
+        YA_DEVUELTO,
+        /** No loan with that id */
+        NO_ENCONTRADO,
+        /** The transaction of this loan's batch chunk failed and was rolled back */
+        ERROR
+    }
+
+    private final int prestamoId;
+    private final Estado estado;
+    private final int libroId;
+    private final LocalDate fechaDevolucion;
+    private final long diasRetraso;
+    private final BigDecimal multa;
+
+    public LoanReturn(int prestamoId, Estado estado, int libroId, LocalDate fechaDevolucion,
+                      long diasRetraso, BigDecimal multa) {
+        this.prestamoId = prestamoId;
+        this.estado = estado;
+        this.libroId = libroId;
+        this.fechaDevolucion = fechaDevolucion;
+        this.diasRetraso = diasRetraso;
+        this.multa = multa;
+    }
+
+    static LoanReturn sinCambios(int prestamoId, Estado estado) {
+        return new LoanReturn(prestamoId, estado, 0, null, 0, BigDecimal.ZERO);
+    }
+
+    public int getPrestamoId() {
+        return prestamoId;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    /**
+     * @return true if this call closed the loan
+     */
+    public boolean isDevuelto() {
+        return estado == Estado.DEVUELTO;
+    }
+
+    /**
+     * Book released by the return (0 when nothing changed)
+     */
+    public int getLibroId() {
+        return libroId;
+    }
+
+    public LocalDate getFechaDevolucion() {
+        return fechaDevolucion;
+    }
+
+    /**
+     * Days returned after the loan period ended
+     */
+    public long getDiasRetraso() {
+        return diasRetraso;
+    }
+
+    /**
+     * Fine stored in Prestamo.multa_calculada
+     */
+    public BigDecimal getMulta() {
+        return multa;
+    }
+
+    @Override
+    public String toString() {
+        return "LoanReturn{prestamoId=" + prestamoId + ", estado=" + estado
+                + ", diasRetraso=" + diasRetraso + ", multa=" + multa + "}";
+    }
+}
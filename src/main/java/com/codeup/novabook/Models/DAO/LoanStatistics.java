@@ -0,0 +1,49 @@
+package com.codeup.novabook.Models.DAO;
+
+/**
+ * Loan counters computed by one aggregate query
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public class LoanStatistics {
+
+    private final long total;
+    private final long activos;
+    private final long devueltos;
+    private final long vencidos;
+
+    public LoanStatistics(long total, long activos, long devueltos, long vencidos) {
+        this.total = total;
+        this.activos = activos;
+        this.devueltos = devueltos;
+        this.vencidos = vencidos;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Loans not returned yet (overdue ones included)
+     */
+    public long getActivos() {
+        return activos;
+    }
+
+    public long getDevueltos() {
+        return devueltos;
+    }
+
+    /**
+     * Loans not returned after the loan period
+     */
+    public long getVencidos() {
+        return vencidos;
+    }
+
+    @Override
+    public String toString() {
+        return "LoanStatistics{total=" + total + ", activos=" + activos
+                + ", devueltos=" + devueltos + ", vencidos=" + vencidos + "}";
+    }
+}
@@ -0,0 +1,414 @@
+package com.codeup.novabook.Models.DAO;
+
+import com.codeup.novabook.Models.Entity.Loan;
+import com.codeup.novabook.Utils.AppLogger;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory calendar of active loans keyed by due date.
+ *
+ * Loans sit in one bucket per due date, so the overdue ones are the buckets
+ * before today and are read in O(k) without touching the database. Checkouts
+ * and returns update the calendar one loan at a time, and a daily tick raises
+ * due and overdue events when the date changes.
+ *
+ * A loan is due on fecha_prestamo + loan period days and overdue from the next day.
+ *
+ * Writes made by other clients on the same database are not seen until the
+ * tracker is reloaded (beginReload / load / finishLoad); LoanDAO does that on
+ * every day change, before the daily events are raised.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public class OverdueTracker {
+
+    /**
+     * Receives the loans that reach their due date or become overdue on a day change
+     */
+    public interface Listener {
+        /** Loans whose due date is today */
+        void onDue(List<Loan> prestamos, LocalDate hoy);
+
+        /** Loans that became overdue since the previous tick */
+        void onOverdue(List<Loan> prestamos, LocalDate hoy);
+
+        /** Called on every tick that moves to a new day, after the loan events */
+        default void onNewDay(LocalDate hoy) {
+        }
+
+        /** Called when a tick moves to a new day (not on the first tick), before the loan events */
+        default void beforeNewDay(LocalDate hoy) {
+        }
+    }
+
+    private final int diasPrestamo;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<LocalDate, Map<Integer, Loan>> porVencimiento = new TreeMap<>();
+    private final Map<Integer, LocalDate> vencimientos = new HashMap<>();
+    private final Set<Integer> removedWhileLoading = new HashSet<>();
+    private final Set<Integer> registeredWhileLoading = new HashSet<>();
+    private final Set<Integer> loaded = new HashSet<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private boolean loading;
+    private volatile boolean ready;
+    private LocalDate ultimoAvance;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param diasPrestamo loan period in days (loan.period.days)
+     */
+    public OverdueTracker(int diasPrestamo) {
+        this.diasPrestamo = diasPrestamo;
+    }
+
+    public int getDiasPrestamo() {
+        return diasPrestamo;
+    }
+
+    public LocalDate vencimientoDe(Loan prestamo) {
+        return prestamo.getFechaPrestamo().plusDays(diasPrestamo);
+    }
+
+    /**
+     * @return true once every active loan has been loaded
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Start filling the tracker. Checkouts and returns that arrive while it is
+     * loading are applied right away and win over the rows being loaded.
+     * @return false if the tracker is already loaded or being loaded
+     */
+    public boolean beginLoad() {
+        lock.writeLock().lock();
+        try {
+            if (ready || loading) {
+                return false;
+            }
+            loading = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Start reloading a tracker that is already loaded, to pick up loans created
+     * or returned by other clients. It keeps answering queries with the current
+     * loans meanwhile; finishLoad(true) drops the ones that were not reloaded.
+     * @return false if the tracker is not loaded yet or is already loading
+     */
+    public boolean beginReload() {
+        lock.writeLock().lock();
+        try {
+            if (!ready || loading) {
+                return false;
+            }
+            loading = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add an active loan read from the database during a load or reload
+     */
+    public void load(Loan prestamo) {
+        lock.writeLock().lock();
+        try {
+            int id = prestamo.getId();
+            if (!prestamo.isDevuelto() && !removedWhileLoading.contains(id)
+                    && !registeredWhileLoading.contains(id)) {
+                desindexar(id);
+                agregar(prestamo);
+                loaded.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finish a load or reload
+     * @param success false to discard what was loaded so the load can be retried
+     *                (a failed reload keeps the loans tracked before it)
+     */
+    public void finishLoad(boolean success) {
+        lock.writeLock().lock();
+        try {
+            if (success) {
+                // Loans not in the database any more were returned or deleted elsewhere
+                for (Integer id : new ArrayList<>(vencimientos.keySet())) {
+                    if (!loaded.contains(id) && !registeredWhileLoading.contains(id)) {
+                        desindexar(id);
+                    }
+                }
+                ready = true;
+            } else if (!ready) {
+                porVencimiento.clear();
+                vencimientos.clear();
+            }
+            loading = false;
+            removedWhileLoading.clear();
+            registeredWhileLoading.clear();
+            loaded.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Track a loan after it was created or changed; a returned loan is dropped
+     * (ignored until a load has started)
+     */
+    public void registrar(Loan prestamo) {
+        if (prestamo == null || prestamo.getId() <= 0) {
+            return;
+        }
+        if (prestamo.isDevuelto()) {
+            quitar(prestamo.getId());
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (ready || loading) {
+                desindexar(prestamo.getId());
+                agregar(prestamo);
+                if (loading) {
+                    registeredWhileLoading.add(prestamo.getId());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stop tracking a loan after it was returned or deleted
+     */
+    public void quitar(int prestamoId) {
+        lock.writeLock().lock();
+        try {
+            desindexar(prestamoId);
+            if (loading) {
+                removedWhileLoading.add(prestamoId);
+                registeredWhileLoading.remove(prestamoId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loans not returned after their due date, oldest due date first
+     * @param hoy reference date
+     */
+    public List<Loan> vencidos(LocalDate hoy) {
+        lock.readLock().lock();
+        try {
+            return aplanar(porVencimiento.headMap(hoy, false).values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int contarVencidos(LocalDate hoy) {
+        lock.readLock().lock();
+        try {
+            int total = 0;
+            for (Map<Integer, Loan> bucket : porVencimiento.headMap(hoy, false).values()) {
+                total += bucket.size();
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loans whose due date is exactly the given day
+     */
+    public List<Loan> vencenEl(LocalDate fecha) {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Loan> bucket = porVencimiento.get(fecha);
+            return bucket != null ? new ArrayList<>(bucket.values()) : new ArrayList<>();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of active loans tracked
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return vencimientos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Move the tracker to a new day and notify listeners of the loans due that
+     * day and of those that became overdue since the previous tick.
+     * Ticking twice on the same day raises nothing the second time.
+     * @param hoy the new current date
+     */
+    public void avanzar(LocalDate hoy) {
+        LocalDate anterior;
+        lock.readLock().lock();
+        try {
+            anterior = ultimoAvance;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (anterior != null && !hoy.equals(anterior)) {
+            for (Listener listener : listeners) {
+                notificar("beforeNewDay", () -> listener.beforeNewDay(hoy));
+            }
+        }
+
+        List<Loan> vencenHoy;
+        List<Loan> nuevosVencidos;
+        lock.writeLock().lock();
+        try {
+            if (hoy.equals(ultimoAvance)) {
+                return;
+            }
+            LocalDate desde = ultimoAvance != null ? ultimoAvance : hoy;
+            vencenHoy = vencenEl(hoy);
+            nuevosVencidos = desde.isBefore(hoy)
+                    ? aplanar(porVencimiento.subMap(desde, true, hoy, false).values())
+                    : Collections.emptyList();
+            ultimoAvance = hoy;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        for (Listener listener : listeners) {
+            if (!vencenHoy.isEmpty()) {
+                notificar("onDue", () -> listener.onDue(vencenHoy, hoy));
+            }
+            if (!nuevosVencidos.isEmpty()) {
+                notificar("onOverdue", () -> listener.onOverdue(nuevosVencidos, hoy));
+            }
+            notificar("onNewDay", () -> listener.onNewDay(hoy));
+        }
+    }
+
+    /**
+     * Call one listener method; a failing listener is logged and does not keep
+     * the other listeners (or the next tick) from running
+     */
+    private static void notificar(String evento, Runnable llamada) {
+        try {
+            llamada.run();
+        } catch (RuntimeException e) {
+            AppLogger.logError("OverdueTracker", "Listener failed on " + evento, e);
+        }
+    }
+
+    /**
+     * Tick once now and then right after every midnight on a daemon thread
+     */
+    public synchronized void iniciar() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "overdue-tracker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            avanzar(LocalDate.now());
+        } finally {
+            programarSiguienteTick();
+        }
+    }
+
+    public synchronized void detener() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    // Scheduled one day at a time so clock and DST changes do not accumulate drift
+    private synchronized void programarSiguienteTick() {
+        if (scheduler == null) {
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime medianoche = ahora.toLocalDate().plusDays(1).atStartOfDay();
+        long espera = Math.max(1, Duration.between(ahora, medianoche).toMillis());
+        scheduler.schedule(() -> {
+            try {
+                avanzar(LocalDate.now());
+            } catch (RuntimeException e) {
+                AppLogger.logError("OverdueTracker", "Daily tick failed", e);
+            } finally {
+                // A failed tick must not end the daily chain
+                programarSiguienteTick();
+            }
+        }, espera, TimeUnit.MILLISECONDS);
+    }
+
+    private void agregar(Loan prestamo) {
+        LocalDate vencimiento = vencimientoDe(prestamo);
+        porVencimiento.computeIfAbsent(vencimiento, fecha -> new LinkedHashMap<>()).put(prestamo.getId(), prestamo);
+        vencimientos.put(prestamo.getId(), vencimiento);
+    }
+
+    private void desindexar(int prestamoId) {
+        LocalDate vencimiento = vencimientos.remove(prestamoId);
+        if (vencimiento == null) {
+            return;
+        }
+        Map<Integer, Loan> bucket = porVencimiento.get(vencimiento);
+        bucket.remove(prestamoId);
+        if (bucket.isEmpty()) {
+            porVencimiento.remove(vencimiento);
+        }
+    }
+
+    private static List<Loan> aplanar(Collection<Map<Integer, Loan>> buckets) {
+        List<Loan> prestamos = new ArrayList<>();
+        for (Map<Integer, Loan> bucket : buckets) {
+            prestamos.addAll(bucket.values());
+        }
+        return prestamos;
+    }
+}
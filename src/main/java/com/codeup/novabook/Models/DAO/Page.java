@@ -0,0 +1,48 @@
+package com.codeup.novabook.Models.DAO;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated query
+ *
+ * Holds the rows of the page, whether more rows follow, and the id of the
+ * last row, which is the cursor to pass back to the DAO to get the next page.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public class Page<T> {
+
+    private final List<T> items;
+    private final boolean hasMore;
+    private final int lastId;
+
+    public Page(List<T> items, boolean hasMore, int lastId) {
+        this.items = Collections.unmodifiableList(items);
+        this.hasMore = hasMore;
+        this.lastId = lastId;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Cursor for the next page (id of the last row, or 0 if the page is empty)
+     */
+    public int getLastId() {
+        return lastId;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
@@ -0,0 +1,201 @@
+package com.codeup.novabook.Models.DAO;
+
+import com.codeup.novabook.Models.Entity.Partner;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent cache of partners, looked up by id or by email
+ *
+ * Entries expire ttlMillis after they were loaded. When more than maxSize
+ * partners are cached, expired entries are purged first and then the oldest
+ * ones are evicted; writes keep the entries in load order, so both start from
+ * the head in O(1) per removed entry. Lookups never block each other and only
+ * writes are serialized; emails are matched case-insensitively like the
+ * Socio.email column. Copies are stored and returned, so callers cannot
+ * change cached partners.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public class PartnerCache {
+
+    private static class Entry {
+        final Partner partner;
+        final long loadedAt;
+
+        Entry(Partner partner, long loadedAt) {
+            this.partner = partner;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<Integer, Entry> partnersById = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idsByEmail = new ConcurrentHashMap<>();
+    // Same entries in load order (oldest first), guarded by this
+    private final LinkedHashMap<Integer, Entry> loadOrder = new LinkedHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public PartnerCache(int maxSize, long ttlMillis) {
+        this.maxSize = Math.max(0, maxSize);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * @return a copy of the cached partner, or null on a miss or if the entry expired
+     */
+    public Partner getById(int id) {
+        Entry entry = partnersById.get(id);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (isExpired(entry, System.currentTimeMillis())) {
+            expire(id, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copy(entry.partner);
+    }
+
+    /**
+     * @return a copy of the cached partner, or null on a miss or if the entry expired
+     */
+    public Partner getByEmail(String email) {
+        Integer id = email != null ? idsByEmail.get(key(email)) : null;
+        if (id == null) {
+            misses.increment();
+            return null;
+        }
+        return getById(id);
+    }
+
+    /**
+     * Add or replace a partner (a copy is stored)
+     */
+    public void put(Partner partner) {
+        if (partner == null || partner.getId() <= 0 || maxSize == 0) {
+            return;
+        }
+        Entry entry = new Entry(copy(partner), System.currentTimeMillis());
+        synchronized (this) {
+            Entry previous = partnersById.put(partner.getId(), entry);
+            loadOrder.remove(partner.getId());
+            loadOrder.put(partner.getId(), entry);
+            if (previous != null && previous.partner.getEmail() != null) {
+                idsByEmail.remove(key(previous.partner.getEmail()), partner.getId());
+            }
+            if (partner.getEmail() != null) {
+                idsByEmail.put(key(partner.getEmail()), partner.getId());
+            }
+            if (partnersById.size() > maxSize) {
+                shrink();
+            }
+        }
+    }
+
+    public synchronized void invalidate(int id) {
+        Entry removed = partnersById.remove(id);
+        loadOrder.remove(id);
+        if (removed != null) {
+            removeEmail(id, removed);
+        }
+    }
+
+    public synchronized void clear() {
+        partnersById.clear();
+        loadOrder.clear();
+        idsByEmail.clear();
+    }
+
+    public int size() {
+        return partnersById.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    /**
+     * Get cache statistics (for debugging)
+     * @return String with size, hits, misses, hit ratio, evictions and expirations
+     */
+    public String getStats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return String.format("Partner cache size: %d/%d, hits: %d, misses: %d, hit ratio: %.1f%%, evictions: %d, expirations: %d",
+            partnersById.size(), maxSize, hitCount, lookups - hitCount,
+            lookups > 0 ? hitCount * 100.0 / lookups : 0.0, evictions.sum(), expirations.sum());
+    }
+
+    /**
+     * Remove entries from the oldest one on: the expired ones (they are all at
+     * the head, since expiry follows load order), then as many as needed for
+     * the cache to fit again. Called with the lock held.
+     */
+    private void shrink() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Integer, Entry>> oldestFirst = loadOrder.entrySet().iterator();
+        while (oldestFirst.hasNext()) {
+            Map.Entry<Integer, Entry> oldest = oldestFirst.next();
+            boolean expired = isExpired(oldest.getValue(), now);
+            if (!expired && partnersById.size() <= maxSize) {
+                break;
+            }
+            oldestFirst.remove();
+            if (partnersById.remove(oldest.getKey(), oldest.getValue())) {
+                removeEmail(oldest.getKey(), oldest.getValue());
+                (expired ? expirations : evictions).increment();
+            }
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return ttlMillis > 0 && now - entry.loadedAt >= ttlMillis;
+    }
+
+    private synchronized void expire(int id, Entry entry) {
+        if (partnersById.remove(id, entry)) {
+            loadOrder.remove(id, entry);
+            removeEmail(id, entry);
+            expirations.increment();
+        }
+    }
+
+    private void removeEmail(int id, Entry entry) {
+        if (entry.partner.getEmail() != null) {
+            idsByEmail.remove(key(entry.partner.getEmail()), id);
+        }
+    }
+
+    private static String key(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Partner copy(Partner partner) {
+        return new Partner(partner.getId(), partner.getNombre(), partner.getDireccion(), partner.getTelefono(),
+                partner.getEmail(), partner.isActivo(), partner.getFechaRegistro());
+    }
+}
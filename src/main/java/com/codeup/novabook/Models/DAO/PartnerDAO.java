@@ -10,12 +10,18 @@ package com.codeup.novabook.Models.DAO;
  */
 import com.codeup.novabook.Models.Connection.ConnectionDB;
 import com.codeup.novabook.Models.Entity.Partner;
+import com.codeup.novabook.Utils.ConfigManager;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class PartnerDAO {
 
+    // Shared by every PartnerDAO instance
+    private static final PartnerCache CACHE = new PartnerCache(
+            ConfigManager.getInstance().getPartnerCacheSize(),
+            ConfigManager.getInstance().getPartnerCacheTtl());
+
     public void agregar(Partner partner) throws SQLException {
         String sql = "INSERT INTO Socio (nombre, direccion, telefono, email, activo) VALUES (?, ?, ?, ?, ?)";
         try (Connection conn = ConnectionDB.getConnection();
@@ -34,6 +40,11 @@ public class PartnerDAO {
     }
 
     public Partner obtenerPorId(int id) throws SQLException {
+        Partner cached = CACHE.getById(id);
+        if (cached != null) {
+            return cached;
+        }
+
         String sql = "SELECT * FROM Socio WHERE id = ?";
         try (Connection conn = ConnectionDB.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -42,15 +53,9 @@ public class PartnerDAO {
             ResultSet rs = ps.executeQuery();
 
             if (rs.next()) {
-                return new Partner(
-                        rs.getInt("id"),
-                        rs.getString("nombre"),
-                        rs.getString("direccion"),
-                        rs.getString("telefono"),
-                        rs.getString("email"),
-                        rs.getBoolean("activo"),
-                        rs.getTimestamp("fecha_registro").toLocalDateTime()
-                );
+                Partner partner = mapearSocio(rs);
+                CACHE.put(partner);
+                return partner;
             }
         }
         return null;
@@ -64,16 +69,7 @@ public class PartnerDAO {
              ResultSet rs = st.executeQuery(sql)) {
 
             while (rs.next()) {
-                Partner partner = new Partner(
-                        rs.getInt("id"),
-                        rs.getString("nombre"),
-                        rs.getString("direccion"),
-                        rs.getString("telefono"),
-                        rs.getString("email"),
-                        rs.getBoolean("activo"),
-                        rs.getTimestamp("fecha_registro").toLocalDateTime()
-                );
-                lista.add(partner);
+                lista.add(mapearSocio(rs));
             }
         }
         return lista;
@@ -87,21 +83,89 @@ public class PartnerDAO {
              ResultSet rs = st.executeQuery(sql)) {
 
             while (rs.next()) {
-                Partner partner = new Partner(
-                        rs.getInt("id"),
-                        rs.getString("nombre"),
-                        rs.getString("direccion"),
-                        rs.getString("telefono"),
-                        rs.getString("email"),
-                        rs.getBoolean("activo"),
-                        rs.getTimestamp("fecha_registro").toLocalDateTime()
-                );
-                lista.add(partner);
+                lista.add(mapearSocio(rs));
             }
         }
         return lista;
     }
 
+    /**
+     * Keyset page of partners ordered by id
+     * @param despuesDeId cursor: id of the last partner of the previous page (0 for the first page)
+     * @param limite maximum number of partners in the page
+     * @param filtro optional text matched against name and email (null or empty for none)
+     * @return page of partners after the cursor
+     */
+    public Page<Partner> listarPagina(int despuesDeId, int limite, String filtro) throws SQLException {
+        boolean filtrar = filtro != null && !filtro.trim().isEmpty();
+        String sql = "SELECT * FROM Socio WHERE id > ?"
+                + (filtrar ? " AND (nombre LIKE ? ESCAPE '\\\\' OR email LIKE ? ESCAPE '\\\\')" : "")
+                + " ORDER BY id LIMIT ?";
+        try (Connection conn = ConnectionDB.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            ps.setInt(i++, despuesDeId);
+            if (filtrar) {
+                String patron = "%" + BookDAO.escaparLike(filtro.trim()) + "%";
+                ps.setString(i++, patron);
+                ps.setString(i++, patron);
+            }
+            ps.setInt(i, limite + 1);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return leerPagina(rs, limite);
+            }
+        }
+    }
+
+    /**
+     * Keyset page of active partners for type-ahead pickers, ordered by id
+     * (served by idx_socio_activo)
+     * @param despuesDeId cursor: id of the last partner of the previous page (0 for the first page)
+     * @param limite maximum number of partners in the page
+     * @param prefijo optional text the name or email must start with (null or empty for none)
+     * @return page of active partners after the cursor
+     */
+    public Page<Partner> listarActivosPagina(int despuesDeId, int limite, String prefijo) throws SQLException {
+        boolean filtrar = prefijo != null && !prefijo.trim().isEmpty();
+        String sql = "SELECT * FROM Socio WHERE activo = true AND id > ?"
+                + (filtrar ? " AND (nombre LIKE ? ESCAPE '\\\\' OR email LIKE ? ESCAPE '\\\\')" : "")
+                + " ORDER BY id LIMIT ?";
+        try (Connection conn = ConnectionDB.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            ps.setInt(i++, despuesDeId);
+            if (filtrar) {
+                String patron = BookDAO.escaparLike(prefijo.trim()) + "%";
+                ps.setString(i++, patron);
+                ps.setString(i++, patron);
+            }
+            ps.setInt(i, limite + 1);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return leerPagina(rs, limite);
+            }
+        }
+    }
+
+    /**
+     * Stream every partner to the handler, ordered by id, without building a List
+     * @param handler callback invoked once per partner
+     */
+    public <E extends Exception> void recorrer(RowHandler<Partner, E> handler) throws SQLException, E {
+        String sql = "SELECT * FROM Socio ORDER BY id";
+        try (Connection conn = ConnectionDB.getConnection();
+             PreparedStatement ps = ConnectionDB.prepareStreamingStatement(conn, sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                handler.handle(mapearSocio(rs));
+            }
+        }
+    }
+
     public void actualizar(Partner partner) throws SQLException {
         String sql = "UPDATE Socio SET nombre=?, direccion=?, telefono=?, email=?, activo=? WHERE id=?";
         try (Connection conn = ConnectionDB.getConnection();
@@ -115,6 +179,7 @@ public class PartnerDAO {
             ps.setInt(6, partner.getId());
             ps.executeUpdate();
         }
+        CACHE.invalidate(partner.getId());
     }
 
     public void eliminar(int id) throws SQLException {
@@ -124,9 +189,15 @@ public class PartnerDAO {
             ps.setInt(1, id);
             ps.executeUpdate();
         }
+        CACHE.invalidate(id);
     }
 
     public Partner buscarPorEmail(String email) throws SQLException {
+        Partner cached = CACHE.getByEmail(email);
+        if (cached != null) {
+            return cached;
+        }
+
         String sql = "SELECT * FROM Socio WHERE email = ?";
         try (Connection conn = ConnectionDB.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -135,17 +206,49 @@ public class PartnerDAO {
             ResultSet rs = ps.executeQuery();
 
             if (rs.next()) {
-                return new Partner(
-                        rs.getInt("id"),
-                        rs.getString("nombre"),
-                        rs.getString("direccion"),
-                        rs.getString("telefono"),
-                        rs.getString("email"),
-                        rs.getBoolean("activo"),
-                        rs.getTimestamp("fecha_registro").toLocalDateTime()
-                );
+                Partner partner = mapearSocio(rs);
+                CACHE.put(partner);
+                return partner;
             }
         }
         return null;
     }
+
+    /**
+     * Shared partner cache, for statistics
+     * @return the cache used by every PartnerDAO
+     */
+    public static PartnerCache getCache() {
+        return CACHE;
+    }
+
+    /**
+     * Read up to limite partners; the query fetches one extra row to know if more follow
+     */
+    private Page<Partner> leerPagina(ResultSet rs, int limite) throws SQLException {
+        List<Partner> lista = new ArrayList<>();
+        boolean hayMas = false;
+        while (rs.next()) {
+            if (lista.size() == limite) {
+                hayMas = true;
+                break;
+            }
+            lista.add(mapearSocio(rs));
+        }
+        int ultimoId = lista.isEmpty() ? 0 : lista.get(lista.size() - 1).getId();
+        return new Page<>(lista, hayMas, ultimoId);
+    }
+
+    private Partner mapearSocio(ResultSet rs) throws SQLException {
+        Timestamp fechaRegistro = rs.getTimestamp("fecha_registro");
+        return new Partner(
+                rs.getInt("id"),
+                rs.getString("nombre"),
+                rs.getString("direccion"),
+                rs.getString("telefono"),
+                rs.getString("email"),
+                rs.getBoolean("activo"),
+                fechaRegistro != null ? fechaRegistro.toLocalDateTime() : null
+        );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.codeup.novabook.Models.DAO;
+
+/**
+ * Callback that receives the rows of a streamed query one at a time
+ *
+ * Used by the DAO streaming methods so callers (e.g. CSV exports) can
+ * process each row as it arrives instead of collecting a List first.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+@FunctionalInterface
+public interface RowHandler<T, E extends Exception> {
+
+    void handle(T row) throws E;
+}
@@ -13,7 +13,9 @@ import com.codeup.novabook.Models.Entity.Users;
 import com.codeup.novabook.Models.Entity.Rol;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -94,6 +96,56 @@ public class UserDAO {
         return lista;
     }
 
+    /**
+     * Keyset page of users ordered by id, with the roles of the whole page
+     * loaded in a single extra query
+     * @param despuesDeId cursor: id of the last user of the previous page (0 for the first page)
+     * @param limite maximum number of users in the page
+     * @param filtro optional text matched against name and email (null or empty for none)
+     * @return page of users after the cursor
+     */
+    public Page<Users> listarPagina(int despuesDeId, int limite, String filtro) throws SQLException {
+        boolean filtrar = filtro != null && !filtro.trim().isEmpty();
+        String sql = "SELECT * FROM Usuario WHERE id > ?"
+                + (filtrar ? " AND (nombre LIKE ? ESCAPE '\\\\' OR email LIKE ? ESCAPE '\\\\')" : "")
+                + " ORDER BY id LIMIT ?";
+        List<Users> lista = new ArrayList<>();
+        boolean hayMas = false;
+        try (Connection conn = ConnectionDB.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            ps.setInt(i++, despuesDeId);
+            if (filtrar) {
+                String patron = "%" + BookDAO.escaparLike(filtro.trim()) + "%";
+                ps.setString(i++, patron);
+                ps.setString(i++, patron);
+            }
+            ps.setInt(i, limite + 1);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (lista.size() == limite) {
+                        hayMas = true;
+                        break;
+                    }
+                    lista.add(new Users(
+                            rs.getInt("id"),
+                            rs.getString("nombre"),
+                            rs.getString("email"),
+                            rs.getString("password"),
+                            rs.getBoolean("activo"),
+                            rs.getTimestamp("fecha_creacion").toLocalDateTime()
+                    ));
+                }
+            }
+        }
+
+        cargarRoles(lista);
+        int ultimoId = lista.isEmpty() ? 0 : lista.get(lista.size() - 1).getId();
+        return new Page<>(lista, hayMas, ultimoId);
+    }
+
     public void actualizar(Users user) throws SQLException {
         String sql = "UPDATE Usuario SET nombre=?, email=?, activo=? WHERE id=?";
         try (Connection conn = ConnectionDB.getConnection();
@@ -237,6 +289,39 @@ public class UserDAO {
         return roles;
     }
 
+    /**
+     * Load the roles of several users with one IN (...) query instead of one query per user
+     */
+    private void cargarRoles(List<Users> usuarios) throws SQLException {
+        if (usuarios.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Users> porId = new HashMap<>();
+        for (Users user : usuarios) {
+            user.setRoles(new ArrayList<>());
+            porId.put(user.getId(), user);
+        }
+
+        String sql = "SELECT ur.usuario_id, r.id, r.nombre FROM Rol r INNER JOIN Usuario_Rol ur ON r.id = ur.rol_id "
+                + "WHERE ur.usuario_id IN (" + BookDAO.marcadores(usuarios.size()) + ")";
+        try (Connection conn = ConnectionDB.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            for (Users user : usuarios) {
+                ps.setInt(i++, user.getId());
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Users user = porId.get(rs.getInt("usuario_id"));
+                    user.getRoles().add(new Rol(rs.getInt("id"), rs.getString("nombre")));
+                }
+            }
+        }
+    }
+
     // Método para encriptar contraseñas
     private String encryptPassword(String password) {
         try {
@@ -10,115 +10,277 @@ package com.codeup.novabook.Reports;
  */
 import com.codeup.novabook.Models.DAO.BookDAO;
 import com.codeup.novabook.Models.Entity.Book;
+import com.codeup.novabook.Utils.ConfigManager;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class CSVBookImporter {
     
+    // Marks the end of the parsed-chunk queue for the writer
+    private static final Future<ParsedChunk> END_OF_INPUT = CompletableFuture.completedFuture(null);
+    private static final int FIELD_COUNT = 4;
+    // Per-worker buffer the fields of a record are unescaped into
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[256]);
+    
     private final BookDAO bookDAO;
+    private final int batchSize;
+    private final int parallelism;
     
     public CSVBookImporter() {
+        this(ConfigManager.getInstance().getImportBatchSize());
+    }
+    
+    /**
+     * @param batchSize number of books checked and inserted per database round trip / transaction
+     */
+    public CSVBookImporter(int batchSize) {
+        this(batchSize, Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * @param batchSize number of records per parse chunk and per database transaction
+     * @param parallelism number of parser workers
+     */
+    public CSVBookImporter(int batchSize, int parallelism) {
         this.bookDAO = new BookDAO();
+        this.batchSize = Math.max(1, batchSize);
+        this.parallelism = Math.max(1, parallelism);
     }
     
     /**
      * Imports books from a CSV file
-     * Expected CSV format: Title,Author,ISBN,Publication Year
+     * Expected CSV format: Title,Author,ISBN,Publication Year (UTF-8)
+     *
+     * The import runs as a pipeline: the calling thread splits the file into
+     * record-aligned chunks of batchSize records straight from a memory-mapped
+     * file, parser workers on a fork-join
+     * pool validate each chunk, and a single writer thread takes the parsed
+     * chunks in file order from a bounded queue and inserts them (one IN (...)
+     * ISBN lookup and one JDBC batch per chunk, each in its own transaction).
      * @param csvFile The CSV file to import
      * @return ImportResult with statistics
      */
     public ImportResult importBooksFromCSV(File csvFile) throws IOException, SQLException {
         ImportResult result = new ImportResult();
-        List<Book> booksToImport = new ArrayList<>();
+        BlockingQueue<Future<ParsedChunk>> queue = new ArrayBlockingQueue<>(parallelism * 2);
+        ForkJoinPool parsers = new ForkJoinPool(parallelism);
+        ChunkWriter writer = new ChunkWriter(queue, result);
+        Thread writerThread = new Thread(writer, "csv-import-writer");
+        writerThread.start();
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(csvFile))) {
-            String line;
-            int lineNumber = 0;
+        try (MappedCSVReader records = new MappedCSVReader(csvFile.toPath())) {
             
-            // Skip header line
-            if ((line = reader.readLine()) != null) {
-                lineNumber++;
-            }
+            // Skip header record
+            records.next();
             
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                
-                try {
-                    Book book = parseBookFromCSVLine(line, lineNumber);
-                    if (book != null) {
-                        booksToImport.add(book);
-                        result.totalProcessed++;
-                    }
-                } catch (Exception e) {
-                    result.errors.add("Line " + lineNumber + ": " + e.getMessage());
+            List<CSVRecord> chunk = new ArrayList<>(batchSize);
+            CSVRecord record;
+            while ((record = records.next()) != null) {
+                chunk.add(record);
+                if (chunk.size() >= batchSize) {
+                    submitChunk(chunk, parsers, queue);
+                    chunk = new ArrayList<>(batchSize);
+                }
+            }
+            submitChunk(chunk, parsers, queue);
+        
+        } finally {
+            try {
+                queue.put(END_OF_INPUT);
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                writerThread.interrupt();
+            }
+            parsers.shutdown();
+        }
+        
+        if (writer.failure instanceof SQLException) {
+            throw (SQLException) writer.failure;
+        } else if (writer.failure != null) {
+            throw new IOException("CSV import failed: " + writer.failure.getMessage(), writer.failure);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Hand a chunk of records to the parser pool; blocks when the queue is full
+     * so the reader never runs too far ahead of the writer
+     */
+    private void submitChunk(List<CSVRecord> chunk, ForkJoinPool parsers,
+                             BlockingQueue<Future<ParsedChunk>> queue) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            queue.put(parsers.submit(() -> parseChunk(chunk)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("CSV import interrupted", e);
+        }
+    }
+    
+    /**
+     * Parse and validate one chunk of records (runs on a parser worker)
+     */
+    static ParsedChunk parseChunk(List<CSVRecord> records) {
+        ParsedChunk parsed = new ParsedChunk(records.size());
+        for (CSVRecord record : records) {
+            try {
+                Book book = parseBookFromCSVRecord(record.bytes, record.lineNumber);
+                if (book != null) {
+                    parsed.books.add(book);
                 }
+            } catch (Exception e) {
+                parsed.errors.add("Line " + record.lineNumber + ": " + e.getMessage());
             }
         }
+        return parsed;
+    }
+    
+    /**
+     * Single database writer: consumes parsed chunks in file order
+     */
+    private class ChunkWriter implements Runnable {
+        private final BlockingQueue<Future<ParsedChunk>> queue;
+        private final ImportResult result;
+        private final Set<String> seenIsbns = new HashSet<>();
+        private volatile Exception failure;
         
-        // Import books to database
-        for (Book book : booksToImport) {
+        ChunkWriter(BlockingQueue<Future<ParsedChunk>> queue, ImportResult result) {
+            this.queue = queue;
+            this.result = result;
+        }
+        
+        @Override
+        public void run() {
             try {
-                // Check if book already exists by ISBN
-                if (!bookDAO.existsByISBN(book.getIsbn())) {
-                    bookDAO.insertar(book);
-                    result.imported++;
-                } else {
+                Future<ParsedChunk> next;
+                while ((next = queue.take()) != END_OF_INPUT) {
+                    // After a failure keep draining so the reader is never blocked on a full queue
+                    if (failure != null) {
+                        continue;
+                    }
+                    try {
+                        ParsedChunk chunk = next.get();
+                        result.totalProcessed += chunk.books.size();
+                        result.errors.addAll(chunk.errors);
+                        importBatch(chunk.books, seenIsbns, result);
+                    } catch (ExecutionException e) {
+                        failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    } catch (RuntimeException e) {
+                        failure = e;
+                    }
+                }
+            } catch (InterruptedException e) {
+                failure = e;
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Insert one chunk of parsed books, skipping ISBNs already in the database
+     * or already seen earlier in the same file
+     */
+    private void importBatch(List<Book> books, Set<String> seenIsbns, ImportResult result) {
+        if (books.isEmpty()) {
+            return;
+        }
+        
+        try {
+            Set<String> isbns = new HashSet<>();
+            for (Book book : books) {
+                isbns.add(book.getIsbn());
+            }
+            Set<String> existing = bookDAO.buscarIsbnExistentes(isbns, batchSize);
+            
+            List<Book> toInsert = new ArrayList<>(books.size());
+            Set<String> batchIsbns = new HashSet<>();
+            for (Book book : books) {
+                if (existing.contains(book.getIsbn()) || seenIsbns.contains(book.getIsbn())
+                        || !batchIsbns.add(book.getIsbn())) {
                     result.skipped++;
                     result.errors.add("Book with ISBN " + book.getIsbn() + " already exists - skipped");
+                } else {
+                    toInsert.add(book);
                 }
-            } catch (SQLException e) {
-                result.errors.add("Error importing book '" + book.getTitulo() + "': " + e.getMessage());
             }
+            
+            result.imported += bookDAO.insertarLote(toInsert);
+            seenIsbns.addAll(batchIsbns);
+        } catch (SQLException e) {
+            result.errors.add("Error importing batch of " + books.size() + " books starting with '"
+                + books.get(0).getTitulo() + "': " + e.getMessage());
         }
-        
-        return result;
     }
     
-    private Book parseBookFromCSVLine(String line, int lineNumber) throws Exception {
-        String[] fields = parseCSVLine(line);
+    /**
+     * Parse and validate one record from its UTF-8 bytes (kept for callers
+     * that already hold the line as a String)
+     */
+    static Book parseBookFromCSVLine(String line, int lineNumber) throws Exception {
+        return parseBookFromCSVRecord(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)), lineNumber);
+    }
+    
+    /**
+     * Parse and validate one record straight from its UTF-8 bytes.
+     * Fields are unescaped into a per-thread scratch buffer and validated there;
+     * Strings are only created once the whole record is valid.
+     */
+    static Book parseBookFromCSVRecord(ByteBuffer record, int lineNumber) throws Exception {
+        byte[] scratch = SCRATCH.get();
+        if (scratch.length < record.remaining()) {
+            scratch = new byte[Math.max(record.remaining(), scratch.length * 2)];
+            SCRATCH.set(scratch);
+        }
+        
+        int[] bounds = new int[FIELD_COUNT * 2];
+        int fields = splitFields(record, scratch, bounds);
         
-        if (fields.length < 4) {
+        if (fields < FIELD_COUNT) {
             throw new Exception("Invalid CSV format - expected 4 fields (Title,Author,ISBN,Year)");
         }
         
-        String title = fields[0].trim();
-        String author = fields[1].trim();
-        String isbn = fields[2].trim();
-        String yearStr = fields[3].trim();
+        trim(scratch, bounds);
         
-        if (title.isEmpty()) {
+        if (bounds[0] == bounds[1]) {
             throw new Exception("Title cannot be empty");
         }
         
-        if (author.isEmpty()) {
+        if (bounds[2] == bounds[3]) {
             throw new Exception("Author cannot be empty");
         }
         
-        if (isbn.isEmpty()) {
+        if (bounds[4] == bounds[5]) {
             throw new Exception("ISBN cannot be empty");
         }
         
-        int year;
-        try {
-            year = Integer.parseInt(yearStr);
-            if (year < 1000 || year > 2030) {
-                throw new Exception("Invalid publication year: " + year);
-            }
-        } catch (NumberFormatException e) {
-            throw new Exception("Invalid publication year format: " + yearStr);
+        int year = parseYear(scratch, bounds[6], bounds[7]);
+        if (year < 1000 || year > 2030) {
+            throw new Exception("Invalid publication year: " + year);
         }
         
         Book book = new Book();
-        book.setTitulo(title);
-        book.setAutor(author);
-        book.setIsbn(isbn);
+        book.setTitulo(utf8(scratch, bounds[0], bounds[1]));
+        book.setAutor(utf8(scratch, bounds[2], bounds[3]));
+        book.setIsbn(utf8(scratch, bounds[4], bounds[5]));
         book.setAnioPublicacion(year);
         book.setDisponible(true);
         book.setFechaAlta(LocalDateTime.now());
@@ -126,36 +288,115 @@ public class CSVBookImporter {
         return book;
     }
     
-    private String[] parseCSVLine(String line) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder currentField = new StringBuilder();
+    /**
+     * Unescape the fields of a record into scratch and store the [start, end)
+     * of the first FIELD_COUNT fields in bounds
+     * @return total number of fields in the record
+     */
+    private static int splitFields(ByteBuffer record, byte[] scratch, int[] bounds) {
+        int out = 0;
+        int field = 0;
+        int fieldStart = 0;
         boolean inQuotes = false;
+        int end = record.limit();
         
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
+        for (int i = record.position(); i < end; i++) {
+            byte b = record.get(i);
             
-            if (c == '"') {
-                if (inQuotes && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+            if (b == '"') {
+                if (inQuotes && i + 1 < end && record.get(i + 1) == '"') {
                     // Double quote - add single quote to field
-                    currentField.append('"');
+                    scratch[out++] = '"';
                     i++; // Skip next quote
                 } else {
                     // Toggle quote state
                     inQuotes = !inQuotes;
                 }
-            } else if (c == ',' && !inQuotes) {
+            } else if (b == ',' && !inQuotes) {
                 // Field separator
-                fields.add(currentField.toString());
-                currentField = new StringBuilder();
+                if (field < FIELD_COUNT) {
+                    bounds[field * 2] = fieldStart;
+                    bounds[field * 2 + 1] = out;
+                }
+                field++;
+                fieldStart = out;
             } else {
-                currentField.append(c);
+                scratch[out++] = b;
             }
         }
         
-        // Add last field
-        fields.add(currentField.toString());
+        // Last field
+        if (field < FIELD_COUNT) {
+            bounds[field * 2] = fieldStart;
+            bounds[field * 2 + 1] = out;
+        }
+        return field + 1;
+    }
+    
+    /**
+     * Same as String.trim(): UTF-8 continuation and lead bytes are all above 0x7F,
+     * so only ASCII control characters and spaces are stripped
+     */
+    private static void trim(byte[] scratch, int[] bounds) {
+        for (int f = 0; f < bounds.length; f += 2) {
+            while (bounds[f] < bounds[f + 1] && (scratch[bounds[f]] & 0xFF) <= ' ') {
+                bounds[f]++;
+            }
+            while (bounds[f + 1] > bounds[f] && (scratch[bounds[f + 1] - 1] & 0xFF) <= ' ') {
+                bounds[f + 1]--;
+            }
+        }
+    }
+    
+    private static int parseYear(byte[] scratch, int start, int end) throws Exception {
+        int i = start;
+        boolean negative = i < end && scratch[i] == '-';
+        if (i < end && (scratch[i] == '-' || scratch[i] == '+')) {
+            i++;
+        }
+        
+        long value = 0;
+        boolean digits = i < end;
+        for (; i < end && digits; i++) {
+            int digit = scratch[i] - '0';
+            digits = digit >= 0 && digit <= 9 && value <= Integer.MAX_VALUE;
+            value = value * 10 + digit;
+        }
+        
+        long year = negative ? -value : value;
+        if (!digits || year > Integer.MAX_VALUE || year < Integer.MIN_VALUE) {
+            throw new Exception("Invalid publication year format: " + utf8(scratch, start, end));
+        }
+        return (int) year;
+    }
+    
+    private static String utf8(byte[] scratch, int start, int end) {
+        return new String(scratch, start, end - start, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * One CSV record (its raw UTF-8 bytes) and the physical line it starts on
+     */
+    static class CSVRecord {
+        final int lineNumber;
+        final ByteBuffer bytes;
+        
+        CSVRecord(int lineNumber, ByteBuffer bytes) {
+            this.lineNumber = lineNumber;
+            this.bytes = bytes;
+        }
+    }
+    
+    /**
+     * Books and error messages produced by parsing one chunk
+     */
+    static class ParsedChunk {
+        final List<Book> books;
+        final List<String> errors = new ArrayList<>();
         
-        return fields.toArray(new String[0]);
+        ParsedChunk(int expectedSize) {
+            this.books = new ArrayList<>(expectedSize);
+        }
     }
     
     public static class ImportResult {
@@ -182,4 +423,4 @@ public class CSVBookImporter {
             return sb.toString();
         }
     }
-}
\ No newline at end of file
+}
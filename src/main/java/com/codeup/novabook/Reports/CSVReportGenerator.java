@@ -9,9 +9,13 @@ package com.codeup.novabook.Reports;
  * @author Coder
  */
 import com.codeup.novabook.Models.DAO.BookDAO;
+import com.codeup.novabook.Models.DAO.FineCalculator;
 import com.codeup.novabook.Models.DAO.LoanDAO;
+import com.codeup.novabook.Models.DAO.PartnerDAO;
 import com.codeup.novabook.Models.Entity.Book;
 import com.codeup.novabook.Models.Entity.Loan;
+import com.codeup.novabook.Models.Entity.Partner;
+import com.codeup.novabook.Utils.ConfigManager;
 
 import java.io.BufferedWriter;
 import java.io.File;
@@ -31,10 +35,16 @@ public class CSVReportGenerator {
     
     private final BookDAO bookDAO;
     private final LoanDAO loanDAO;
+    private final PartnerDAO partnerDAO;
+    private final int loanPeriodDays;
+    private final FineCalculator fineCalculator;
     
     public CSVReportGenerator() {
         this.bookDAO = new BookDAO();
         this.loanDAO = new LoanDAO();
+        this.partnerDAO = new PartnerDAO();
+        this.loanPeriodDays = ConfigManager.getInstance().getLoanPeriodDays();
+        this.fineCalculator = FineCalculator.desdeConfiguracion();
     }
     
     /**
@@ -44,32 +54,32 @@ public class CSVReportGenerator {
      * @throws IOException If there's an error writing the file
      */
     public void generateBookCatalogReport(File outputFile) throws SQLException, IOException {
-        List<Book> books = bookDAO.listar();
-        
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
             // Write CSV header
             writeCSVHeader(writer, new String[]{
-                "ID", "Title", "Author", "ISBN", "Publication Year", 
+                "ID", "Title", "Author", "ISBN", "Publication Year",
                 "Available", "Date Added", "Status"
             });
             
-            // Write book data
-            for (Book book : books) {
-                String[] rowData = {
-                    String.valueOf(book.getId()),
-                    escapeCSVValue(book.getTitulo()),
-                    escapeCSVValue(book.getAutor()),
-                    escapeCSVValue(book.getIsbn()),
-                    String.valueOf(book.getAnioPublicacion()),
-                    book.isDisponible() ? "Yes" : "No",
-                    book.getFechaAlta() != null ? book.getFechaAlta().format(DATETIME_FORMATTER) : "",
-                    book.isDisponible() ? "Available" : "On Loan"
-                };
-                writeCSVRow(writer, rowData);
-            }
+            // Stream book data straight from the database cursor into the file
+            bookDAO.recorrer(book -> writeBookRow(writer, book));
         }
     }
     
+    private void writeBookRow(BufferedWriter writer, Book book) throws IOException {
+        String[] rowData = {
+            String.valueOf(book.getId()),
+            escapeCSVValue(book.getTitulo()),
+            escapeCSVValue(book.getAutor()),
+            escapeCSVValue(book.getIsbn()),
+            String.valueOf(book.getAnioPublicacion()),
+            book.isDisponible() ? "Yes" : "No",
+            book.getFechaAlta() != null ? book.getFechaAlta().format(DATETIME_FORMATTER) : "",
+            book.isDisponible() ? "Available" : "On Loan"
+        };
+        writeCSVRow(writer, rowData);
+    }
+    
     /**
      * Generates a CSV report of overdue loans
      * @param outputFile The file where the CSV will be saved
@@ -84,15 +94,13 @@ public class CSVReportGenerator {
             writeCSVHeader(writer, new String[]{
                 "Loan ID", "Book Title", "Book Author", "Book ISBN",
                 "Partner Name", "Partner Email", "Partner Phone",
-                "Loan Date", "Days Overdue", "Status"
+                "Loan Date", "Days Overdue", "Accrued Fine", "Status"
             });
             
             // Write overdue loan data
+            java.time.LocalDate today = java.time.LocalDate.now();
             for (Loan loan : overdueLoans) {
-                long daysOverdue = java.time.temporal.ChronoUnit.DAYS.between(
-                    loan.getFechaPrestamo().plusDays(15), // 15-day loan period
-                    java.time.LocalDate.now()
-                );
+                long daysOverdue = fineCalculator.diasDeRetraso(loan.getFechaPrestamo(), today);
                 
                 String[] rowData = {
                     String.valueOf(loan.getId()),
@@ -104,6 +112,7 @@ public class CSVReportGenerator {
                     escapeCSVValue(loan.getSocio().getTelefono()),
                     loan.getFechaPrestamo().format(DATE_FORMATTER),
                     String.valueOf(daysOverdue),
+                    fineCalculator.calcularMulta(daysOverdue).toPlainString(),
                     "OVERDUE"
                 };
                 writeCSVRow(writer, rowData);
@@ -118,51 +127,51 @@ public class CSVReportGenerator {
      * @throws IOException If there's an error writing the file
      */
     public void generateAllLoansReport(File outputFile) throws SQLException, IOException {
-        List<Loan> allLoans = loanDAO.listar();
-        
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
             // Write CSV header
             writeCSVHeader(writer, new String[]{
-                "Loan ID", "Book Title", "Book Author", "Partner Name", 
-                "Partner Email", "Loan Date", "Return Date", "Status", 
+                "Loan ID", "Book Title", "Book Author", "Partner Name",
+                "Partner Email", "Loan Date", "Return Date", "Status",
                 "Days Since Loan", "Is Overdue"
             });
             
-            // Write loan data
-            for (Loan loan : allLoans) {
-                long daysSinceLoan = java.time.temporal.ChronoUnit.DAYS.between(
-                    loan.getFechaPrestamo(), java.time.LocalDate.now()
-                );
-                
-                String status;
-                String isOverdue = "No";
-                
-                if (loan.isDevuelto()) {
-                    status = "Returned";
-                } else if (daysSinceLoan > 15) {
-                    status = "Overdue";
-                    isOverdue = "Yes";
-                } else {
-                    status = "Active";
-                }
-                
-                String[] rowData = {
-                    String.valueOf(loan.getId()),
-                    escapeCSVValue(loan.getLibro().getTitulo()),
-                    escapeCSVValue(loan.getLibro().getAutor()),
-                    escapeCSVValue(loan.getSocio().getNombre()),
-                    escapeCSVValue(loan.getSocio().getEmail()),
-                    loan.getFechaPrestamo().format(DATE_FORMATTER),
-                    loan.getFechaDevolucion() != null ? loan.getFechaDevolucion().format(DATE_FORMATTER) : "",
-                    status,
-                    String.valueOf(daysSinceLoan),
-                    isOverdue
-                };
-                writeCSVRow(writer, rowData);
-            }
+            // Stream loan data straight from the database cursor into the file
+            loanDAO.recorrer(loan -> writeLoanRow(writer, loan));
         }
     }
     
+    private void writeLoanRow(BufferedWriter writer, Loan loan) throws IOException {
+        long daysSinceLoan = java.time.temporal.ChronoUnit.DAYS.between(
+            loan.getFechaPrestamo(), java.time.LocalDate.now()
+        );
+        
+        String status;
+        String isOverdue = "No";
+        
+        if (loan.isDevuelto()) {
+            status = "Returned";
+        } else if (daysSinceLoan > loanPeriodDays) {
+            status = "Overdue";
+            isOverdue = "Yes";
+        } else {
+            status = "Active";
+        }
+        
+        String[] rowData = {
+            String.valueOf(loan.getId()),
+            escapeCSVValue(loan.getLibro().getTitulo()),
+            escapeCSVValue(loan.getLibro().getAutor()),
+            escapeCSVValue(loan.getSocio().getNombre()),
+            escapeCSVValue(loan.getSocio().getEmail()),
+            loan.getFechaPrestamo().format(DATE_FORMATTER),
+            loan.getFechaDevolucion() != null ? loan.getFechaDevolucion().format(DATE_FORMATTER) : "",
+            status,
+            String.valueOf(daysSinceLoan),
+            isOverdue
+        };
+        writeCSVRow(writer, rowData);
+    }
+    
     /**
      * Generates a partners report
      * @param outputFile The file where the CSV will be saved
@@ -170,9 +179,6 @@ public class CSVReportGenerator {
      * @throws IOException If there's an error writing the file
      */
     public void generatePartnersReport(File outputFile) throws SQLException, IOException {
-        List<com.codeup.novabook.Models.Entity.Partner> partners = 
-            new com.codeup.novabook.Models.DAO.PartnerDAO().listar();
-        
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
             // Write CSV header
             writeCSVHeader(writer, new String[]{
@@ -180,23 +186,25 @@ public class CSVReportGenerator {
                 "Active", "Registration Date", "Status"
             });
             
-            // Write partner data
-            for (com.codeup.novabook.Models.Entity.Partner partner : partners) {
-                String[] rowData = {
-                    String.valueOf(partner.getId()),
-                    escapeCSVValue(partner.getNombre()),
-                    escapeCSVValue(partner.getEmail()),
-                    escapeCSVValue(partner.getTelefono()),
-                    escapeCSVValue(partner.getDireccion()),
-                    partner.isActivo() ? "Yes" : "No",
-                    partner.getFechaRegistro() != null ? partner.getFechaRegistro().format(DATETIME_FORMATTER) : "",
-                    partner.isActivo() ? "Active" : "Inactive"
-                };
-                writeCSVRow(writer, rowData);
-            }
+            // Stream partner data straight from the database cursor into the file
+            partnerDAO.recorrer(partner -> writePartnerRow(writer, partner));
         }
     }
     
+    private void writePartnerRow(BufferedWriter writer, Partner partner) throws IOException {
+        String[] rowData = {
+            String.valueOf(partner.getId()),
+            escapeCSVValue(partner.getNombre()),
+            escapeCSVValue(partner.getEmail()),
+            escapeCSVValue(partner.getTelefono()),
+            escapeCSVValue(partner.getDireccion()),
+            partner.isActivo() ? "Yes" : "No",
+            partner.getFechaRegistro() != null ? partner.getFechaRegistro().format(DATETIME_FORMATTER) : "",
+            partner.isActivo() ? "Active" : "Inactive"
+        };
+        writeCSVRow(writer, rowData);
+    }
+    
     /**
      * Writes the CSV header row
      */
@@ -207,7 +215,7 @@ public class CSVReportGenerator {
     /**
      * Writes a CSV row
      */
-    private void writeCSVRow(BufferedWriter writer, String[] values) throws IOException {
+    static void writeCSVRow(BufferedWriter writer, String[] values) throws IOException {
         StringBuilder line = new StringBuilder();
         
         for (int i = 0; i < values.length; i++) {
@@ -224,7 +232,7 @@ public class CSVReportGenerator {
     /**
      * Escapes CSV values to handle commas, quotes, and newlines
      */
-    private String escapeCSVValue(String value) {
+    static String escapeCSVValue(String value) {
         if (value == null) {
             return "";
         }
@@ -0,0 +1,125 @@
+package com.codeup.novabook.Reports;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads CSV records straight from a memory-mapped UTF-8 file
+ *
+ * The file is mapped in windows and scanned byte by byte for quotes and line
+ * breaks (both ASCII, so they can never appear inside a multi-byte UTF-8
+ * character). Each record is returned as a read-only slice of the mapping,
+ * so no bytes are copied or decoded here. A line break inside a quoted field
+ * does not end the record, and line numbers count physical lines.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+class MappedCSVReader implements Closeable {
+
+    private static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private int windowSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int position;
+    private int line = 1;
+
+    MappedCSVReader(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param file CSV file to read
+     * @param windowSize bytes mapped at a time; grows if a single record does not fit
+     */
+    MappedCSVReader(Path file, int windowSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.windowSize = Math.max(1, windowSize);
+        if (fileSize > 0) {
+            map(0);
+            skipByteOrderMark();
+        }
+    }
+
+    /**
+     * @return the next record, or null at end of file
+     */
+    CSVBookImporter.CSVRecord next() throws IOException {
+        while (true) {
+            if (window == null || windowStart + position >= fileSize) {
+                return null;
+            }
+
+            int start = position;
+            int limit = window.limit();
+            int lines = 0;
+            boolean inQuotes = false;
+
+            for (int i = start; i < limit; i++) {
+                byte b = window.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n') {
+                    lines++;
+                    if (!inQuotes) {
+                        position = i + 1;
+                        return record(start, i, lines);
+                    }
+                }
+            }
+
+            if (windowStart + limit >= fileSize) {
+                // Last record of the file, without a trailing line break
+                position = limit;
+                return record(start, limit, lines);
+            }
+
+            // The record runs past the window: remap starting at the record,
+            // and grow the window if the record alone already filled it
+            if (start == 0) {
+                windowSize = (int) Math.min(windowSize * 2L, Integer.MAX_VALUE);
+            }
+            map(windowStart + start);
+        }
+    }
+
+    private CSVBookImporter.CSVRecord record(int start, int end, int lines) {
+        if (end > start && window.get(end - 1) == '\r') {
+            end--;
+        }
+        ByteBuffer slice = window.duplicate();
+        slice.limit(end);
+        slice.position(start);
+
+        CSVBookImporter.CSVRecord record = new CSVBookImporter.CSVRecord(line, slice.slice());
+        line += lines;
+        return record;
+    }
+
+    private void map(long offset) throws IOException {
+        long length = Math.min(windowSize, fileSize - offset);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        windowStart = offset;
+        position = 0;
+    }
+
+    private void skipByteOrderMark() {
+        if (window.limit() >= 3 && (window.get(0) & 0xFF) == 0xEF
+                && (window.get(1) & 0xFF) == 0xBB && (window.get(2) & 0xFF) == 0xBF) {
+            position = 3;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
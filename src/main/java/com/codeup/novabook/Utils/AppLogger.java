@@ -2,7 +2,13 @@ package com.codeup.novabook.Utils;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.logging.*;
 
 /**
@@ -16,7 +22,24 @@ import java.util.logging.*;
 public class AppLogger {
     
     private static final Logger ROOT_LOGGER = Logger.getLogger("");
+    private static final Logger SECURITY_LOGGER = Logger.getLogger("SECURITY");
+    private static final Logger DATABASE_LOGGER = Logger.getLogger("DATABASE");
+    private static final Logger BUSINESS_LOGGER = Logger.getLogger("BUSINESS");
+    private static final Logger ERROR_LOGGER = Logger.getLogger("ERROR");
+    private static final Logger SYSTEM_LOGGER = Logger.getLogger("SYSTEM");
+    private static final Logger EVENT_LOGGER = Logger.getLogger("EVENTS");
+    private static final ThreadLocal<String> CORRELATION_ID = new ThreadLocal<>();
+    private static final AtomicLong CORRELATION_SEQUENCE = new AtomicLong();
+    private static final String CORRELATION_PREFIX = Long.toString(System.currentTimeMillis(), 36);
+    
+    static {
+        // Structured events only go to their own JSON-lines file, and nowhere until initialize() enables them
+        EVENT_LOGGER.setUseParentHandlers(false);
+        EVENT_LOGGER.setLevel(Level.OFF);
+    }
     private static boolean initialized = false;
+    private static volatile AsyncLogHandler asyncHandler;
+    private static volatile AsyncLogHandler eventHandler;
     
     /**
      * Initialize the application logger
@@ -52,15 +75,56 @@ public class AppLogger {
                 FileHandler fileHandler = createFileHandler(config);
                 fileHandler.setFormatter(new CustomFormatter());
                 fileHandler.setLevel(logLevel);
-                ROOT_LOGGER.addHandler(fileHandler);
+                
+                if (config.isAsyncLoggingEnabled()) {
+                    asyncHandler = new AsyncLogHandler(fileHandler,
+                        config.getAsyncLogBufferSize(),
+                        parseOverflowPolicy(config.getAsyncLogOverflowPolicy()),
+                        config.getAsyncLogSampleRate(),
+                        "async-logger");
+                    ROOT_LOGGER.addHandler(asyncHandler);
+                } else {
+                    ROOT_LOGGER.addHandler(fileHandler);
+                }
+            }
+            
+            // Create JSON-lines event log
+            if (config.isEventLogEnabled()) {
+                Path eventDir = Paths.get(config.getEventLogFilePath()).getParent();
+                if (eventDir != null) {
+                    Files.createDirectories(eventDir);
+                }
+                FileHandler eventFile = new FileHandler(
+                    rollingPattern(config.getEventLogFilePath()),
+                    parseFileSize(config.getLogMaxFileSize()),
+                    config.getLogMaxFiles(),
+                    true
+                );
+                eventFile.setEncoding("UTF-8");
+                eventFile.setFormatter(new JsonLinesFormatter());
+                eventHandler = new AsyncLogHandler(eventFile,
+                    config.getAsyncLogBufferSize(),
+                    parseOverflowPolicy(config.getAsyncLogOverflowPolicy()),
+                    config.getAsyncLogSampleRate(),
+                    "async-event-logger");
+                EVENT_LOGGER.addHandler(eventHandler);
+                EVENT_LOGGER.setLevel(Level.INFO);
             }
             
-            // Create console handler for development mode
+            // Create console handler for development mode (also off the caller's thread when async)
             if (config.isDevelopmentMode()) {
                 ConsoleHandler consoleHandler = new ConsoleHandler();
                 consoleHandler.setFormatter(new SimpleFormatter());
                 consoleHandler.setLevel(Level.INFO);
-                ROOT_LOGGER.addHandler(consoleHandler);
+                if (config.isAsyncLoggingEnabled()) {
+                    ROOT_LOGGER.addHandler(new AsyncLogHandler(consoleHandler,
+                        config.getAsyncLogBufferSize(),
+                        parseOverflowPolicy(config.getAsyncLogOverflowPolicy()),
+                        config.getAsyncLogSampleRate(),
+                        "async-console-logger"));
+                } else {
+                    ROOT_LOGGER.addHandler(consoleHandler);
+                }
             }
             
             initialized = true;
@@ -100,6 +164,22 @@ public class AppLogger {
         return fileHandler;
     }
     
+    /**
+     * Turn "logs/events.jsonl" into the FileHandler pattern "logs/events.%g.jsonl"
+     * so rolled files keep the .jsonl extension (events.0.jsonl is the current one)
+     */
+    private static String rollingPattern(String path) {
+        if (path.contains("%g")) {
+            return path;
+        }
+        int dot = path.lastIndexOf('.');
+        int slash = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        if (dot <= slash + 1) {
+            return path + ".%g";
+        }
+        return path.substring(0, dot) + ".%g" + path.substring(dot);
+    }
+    
     /**
      * Parse log level string to Level enum
      */
@@ -112,6 +192,18 @@ public class AppLogger {
         }
     }
     
+    /**
+     * Parse async overflow policy string to OverflowPolicy enum
+     */
+    private static AsyncLogHandler.OverflowPolicy parseOverflowPolicy(String policyString) {
+        try {
+            return AsyncLogHandler.OverflowPolicy.valueOf(policyString.toUpperCase().trim());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid async log overflow policy: " + policyString + ". Using BLOCK.");
+            return AsyncLogHandler.OverflowPolicy.BLOCK;
+        }
+    }
+    
     /**
      * Parse file size string (e.g., "10MB") to bytes
      */
@@ -153,10 +245,30 @@ public class AppLogger {
         return Logger.getLogger(name);
     }
     
+    /**
+     * Get async logging statistics (for debugging)
+     * @return String with buffer and overflow counters
+     */
+    public static String getLoggingStats() {
+        AsyncLogHandler handler = asyncHandler;
+        return handler != null ? handler.getStats() : "Async logging disabled";
+    }
+    
     /**
      * Shutdown logging system
      */
     public static void shutdown() {
+        if (asyncHandler != null) {
+            Logger.getLogger(AppLogger.class.getName()).info(asyncHandler.getStats());
+            asyncHandler = null;
+        }
+        if (eventHandler != null) {
+            EVENT_LOGGER.setLevel(Level.OFF);
+            EVENT_LOGGER.removeHandler(eventHandler);
+            eventHandler.close();
+            eventHandler = null;
+        }
+        
         Handler[] handlers = ROOT_LOGGER.getHandlers();
         for (Handler handler : handlers) {
             handler.close();
@@ -177,15 +289,54 @@ public class AppLogger {
         logger.info("Application starting...");
     }
     
+    /**
+     * Log a message built from a MessageFormat pattern ({0}, {1,number,#}, ...).
+     * Nothing is allocated when the level is disabled, and the text itself is
+     * only built by the formatter, on the async writer thread when it is enabled.
+     * Patterns must not contain single quotes (MessageFormat escape character).
+     */
+    public static void log(Logger logger, Level level, String pattern, Object arg) {
+        if (logger.isLoggable(level)) {
+            publish(logger, level, pattern, new Object[]{arg});
+        }
+    }
+    
+    public static void log(Logger logger, Level level, String pattern, Object arg1, Object arg2) {
+        if (logger.isLoggable(level)) {
+            publish(logger, level, pattern, new Object[]{arg1, arg2});
+        }
+    }
+    
+    public static void log(Logger logger, Level level, String pattern, Object... args) {
+        if (logger.isLoggable(level)) {
+            publish(logger, level, pattern, args);
+        }
+    }
+    
+    /**
+     * Log a message that is only built if the level is enabled
+     */
+    public static void log(Logger logger, Level level, Supplier<String> message) {
+        if (logger.isLoggable(level)) {
+            logger.log(level, message.get());
+        }
+    }
+    
+    private static void publish(Logger logger, Level level, String pattern, Object[] args) {
+        LogRecord record = new LogRecord(level, pattern);
+        record.setLoggerName(logger.getName());
+        record.setParameters(args);
+        logger.log(record);
+    }
+    
     /**
      * Log user login event
      */
     public static void logUserLogin(String username, boolean success) {
-        Logger logger = getLogger("SECURITY");
         if (success) {
-            logger.info("User login successful: " + username);
+            log(SECURITY_LOGGER, Level.INFO, "User login successful: {0}", username);
         } else {
-            logger.warning("User login failed: " + username);
+            log(SECURITY_LOGGER, Level.WARNING, "User login failed: {0}", username);
         }
     }
     
@@ -193,63 +344,160 @@ public class AppLogger {
      * Log database operation
      */
     public static void logDatabaseOperation(String operation, String table, boolean success, String details) {
-        Logger logger = getLogger("DATABASE");
-        String message = String.format("DB %s on %s: %s", operation, table, success ? "SUCCESS" : "FAILED");
-        if (details != null && !details.isEmpty()) {
-            message += " - " + details;
+        Level level = success ? Level.INFO : Level.WARNING;
+        if (DATABASE_LOGGER.isLoggable(level)) {
+            String status = success ? "SUCCESS" : "FAILED";
+            if (details != null && !details.isEmpty()) {
+                publish(DATABASE_LOGGER, level, "DB {0} on {1}: {2} - {3}", new Object[]{operation, table, status, details});
+            } else {
+                publish(DATABASE_LOGGER, level, "DB {0} on {1}: {2}", new Object[]{operation, table, status});
+            }
         }
-        
-        if (success) {
-            logger.info(message);
-        } else {
-            logger.warning(message);
+        logEvent(operation, table, -1, success, details);
+    }
+    
+    /**
+     * Log a timed database operation: a text line in the application log and a
+     * structured event in the JSON-lines event log
+     * @param durationNanos elapsed time measured with System.nanoTime()
+     */
+    public static void logDatabaseOperation(String operation, String table, boolean success, long durationNanos, String details) {
+        Level level = success ? Level.INFO : Level.WARNING;
+        if (DATABASE_LOGGER.isLoggable(level)) {
+            String status = success ? "SUCCESS" : "FAILED";
+            Object duration = durationNanos / 1000 / 1000.0;
+            if (details != null && !details.isEmpty()) {
+                publish(DATABASE_LOGGER, level, "DB {0} on {1}: {2} in {3,number,0.###} ms - {4}", new Object[]{operation, table, status, duration, details});
+            } else {
+                publish(DATABASE_LOGGER, level, "DB {0} on {1}: {2} in {3,number,0.###} ms", new Object[]{operation, table, status, duration});
+            }
+        }
+        logEvent(operation, table, durationNanos, success, details);
+    }
+    
+    /**
+     * @return true if events are being written to the JSON-lines event log
+     */
+    public static boolean isEventLogEnabled() {
+        return EVENT_LOGGER.isLoggable(Level.INFO);
+    }
+    
+    /**
+     * Write one structured event to the JSON-lines event log
+     * @param durationNanos elapsed time in nanoseconds, or a negative value if not measured
+     */
+    public static void logEvent(String operation, String table, long durationNanos, boolean success, String details) {
+        if (!EVENT_LOGGER.isLoggable(Level.INFO)) {
+            return;
         }
+        Object[] values = new Object[JsonLinesFormatter.FIELD_COUNT];
+        values[JsonLinesFormatter.OPERATION] = operation;
+        values[JsonLinesFormatter.TABLE] = table;
+        values[JsonLinesFormatter.DURATION] = durationNanos >= 0 ? durationNanos : null;
+        values[JsonLinesFormatter.SUCCESS] = success;
+        values[JsonLinesFormatter.CORRELATION_ID] = CORRELATION_ID.get();
+        values[JsonLinesFormatter.THREAD] = Thread.currentThread().getName();
+        values[JsonLinesFormatter.DETAILS] = details;
+        publish(EVENT_LOGGER, Level.INFO, operation, values);
+    }
+    
+    /**
+     * Start a new correlation id for the current thread; events logged until
+     * clearCorrelationId() carry it, so one user action can be followed across DAO calls
+     * @return the new id
+     */
+    public static String newCorrelationId() {
+        String id = CORRELATION_PREFIX + "-" + Long.toString(CORRELATION_SEQUENCE.incrementAndGet(), 36);
+        CORRELATION_ID.set(id);
+        return id;
+    }
+    
+    public static void setCorrelationId(String id) {
+        CORRELATION_ID.set(id);
+    }
+    
+    public static String getCorrelationId() {
+        return CORRELATION_ID.get();
+    }
+    
+    public static void clearCorrelationId() {
+        CORRELATION_ID.remove();
     }
     
     /**
      * Log business operation (loans, returns, etc.)
      */
     public static void logBusinessOperation(String operation, String entity, String details) {
-        Logger logger = getLogger("BUSINESS");
-        String message = String.format("Business Operation - %s: %s", operation, entity);
+        if (!BUSINESS_LOGGER.isLoggable(Level.INFO)) {
+            return;
+        }
         if (details != null && !details.isEmpty()) {
-            message += " - " + details;
+            publish(BUSINESS_LOGGER, Level.INFO, "Business Operation - {0}: {1} - {2}", new Object[]{operation, entity, details});
+        } else {
+            publish(BUSINESS_LOGGER, Level.INFO, "Business Operation - {0}: {1}", new Object[]{operation, entity});
         }
-        logger.info(message);
     }
     
     /**
      * Log error with exception
      */
     public static void logError(String component, String message, Throwable throwable) {
-        Logger logger = getLogger("ERROR");
-        logger.log(Level.SEVERE, component + " - " + message, throwable);
+        ERROR_LOGGER.log(Level.SEVERE, component + " - " + message, throwable);
     }
     
     /**
      * Log system event
      */
     public static void logSystemEvent(String event, String details) {
-        Logger logger = getLogger("SYSTEM");
-        String message = "System Event - " + event;
         if (details != null && !details.isEmpty()) {
-            message += ": " + details;
+            log(SYSTEM_LOGGER, Level.INFO, "System Event - {0}: {1}", event, details);
+        } else {
+            log(SYSTEM_LOGGER, Level.INFO, "System Event - {0}", event);
         }
-        logger.info(message);
     }
     
     /**
-     * Custom formatter for log files
+     * Custom formatter for log files.
+     * Reuses one StringBuilder per thread and re-formats the timestamp only when
+     * the second changes, so formatting a line allocates little besides the result.
      */
     private static class CustomFormatter extends Formatter {
+        
+        private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        private static final String LINE_SEPARATOR = System.lineSeparator();
+        
+        private static class State {
+            final StringBuilder buffer = new StringBuilder(256);
+            long second = Long.MIN_VALUE;
+            String timestamp;
+        }
+        
+        private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+        
         @Override
         public String format(LogRecord record) {
-            return String.format("[%1$tF %1$tT] [%2$s] [%3$s] %4$s %n",
-                new java.util.Date(record.getMillis()),
-                record.getLevel(),
-                record.getLoggerName(),
-                record.getMessage()
-            );
+            State current = state.get();
+            long second = record.getMillis() / 1000;
+            if (second != current.second) {
+                current.second = second;
+                current.timestamp = TIMESTAMP.format(LocalDateTime.ofInstant(record.getInstant(), ZoneId.systemDefault()));
+            }
+            
+            StringBuilder line = current.buffer;
+            line.setLength(0);
+            line.append('[').append(current.timestamp).append("] [")
+                .append(record.getLevel().getName()).append("] [")
+                .append(record.getLoggerName()).append("] ")
+                .append(record.getParameters() != null ? formatMessage(record) : record.getMessage())
+                .append(' ').append(LINE_SEPARATOR);
+            
+            // Do not let one huge message pin a large buffer to the thread
+            String result = line.toString();
+            if (line.capacity() > 8192) {
+                current.buffer.setLength(0);
+                current.buffer.trimToSize();
+            }
+            return result;
         }
     }
-}
\ No newline at end of file
+}
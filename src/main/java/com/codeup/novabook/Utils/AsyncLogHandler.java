@@ -0,0 +1,222 @@
+package com.codeup.novabook.Utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Handler that hands records to a background thread instead of writing them
+ * on the caller's thread.
+ *
+ * publish() only puts the record in a LogRingBuffer; the writer thread drains
+ * it in batches into the wrapped handler (the log file) and flushes once per
+ * batch. When the buffer is empty the writer sleeps until the next publish()
+ * wakes it. What happens when the buffer is full depends on the OverflowPolicy.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public class AsyncLogHandler extends Handler {
+
+    /**
+     * What publish() does when the buffer is full
+     */
+    public enum OverflowPolicy {
+        /** Discard the record */
+        DROP,
+        /** Wait until the writer thread frees a slot */
+        BLOCK,
+        /** Keep one record in every sample rate (waiting for it) and drop the rest; warnings always wait */
+        SAMPLE
+    }
+
+    private static final long WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int MAX_BATCH = 512;
+
+    private final Handler delegate;
+    private final LogRingBuffer buffer;
+    private final OverflowPolicy policy;
+    private final int sampleRate;
+    private final Thread writer;
+    private volatile boolean running = true;
+    // Set by the writer before it parks on an empty buffer
+    private volatile boolean idle;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+
+    /**
+     * @param delegate handler that does the actual writing (only used by the writer thread)
+     * @param capacity buffer slots
+     * @param policy what to do when the buffer is full
+     * @param sampleRate for SAMPLE, keep 1 in this many overflowing records
+     */
+    public AsyncLogHandler(Handler delegate, int capacity, OverflowPolicy policy, int sampleRate) {
+        this(delegate, capacity, policy, sampleRate, "async-logger");
+    }
+
+    /**
+     * @param threadName name of the writer thread
+     */
+    public AsyncLogHandler(Handler delegate, int capacity, OverflowPolicy policy, int sampleRate, String threadName) {
+        this.delegate = delegate;
+        this.buffer = new LogRingBuffer(capacity);
+        this.policy = policy;
+        this.sampleRate = Math.max(1, sampleRate);
+        setLevel(delegate.getLevel());
+
+        this.writer = new Thread(this::drainLoop, threadName);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (!running || !isLoggable(record)) {
+            return;
+        }
+        published.increment();
+        if (buffer.offer(record)) {
+            wakeWriter();
+            return;
+        }
+
+        overflows.increment();
+        boolean wait;
+        switch (policy) {
+            case BLOCK:
+                wait = true;
+                break;
+            case SAMPLE:
+                wait = record.getLevel().intValue() >= Level.WARNING.intValue()
+                        || overflows.sum() % sampleRate == 0;
+                break;
+            default:
+                wait = false;
+                break;
+        }
+        if (!wait) {
+            dropped.increment();
+            return;
+        }
+
+        blocked.increment();
+        while (!buffer.offer(record)) {
+            if (!running) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(WAIT_NANOS);
+        }
+        wakeWriter();
+    }
+
+    private void wakeWriter() {
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void drainLoop() {
+        while (running || buffer.size() > 0) {
+            if (drainBatch() == 0) {
+                // Re-check after publishing idle: a record offered before publish() read
+                // the flag is seen here, one offered after it gets an unpark
+                idle = true;
+                if (running && buffer.size() == 0) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+            }
+        }
+    }
+
+    private int drainBatch() {
+        int count = 0;
+        LogRecord record;
+        while (count < MAX_BATCH && (record = buffer.poll()) != null) {
+            try {
+                delegate.publish(record);
+            } catch (RuntimeException e) {
+                reportError("Async log write failed", e, ErrorManager.WRITE_FAILURE);
+            }
+            count++;
+        }
+        if (count > 0) {
+            written.add(count);
+            delegate.flush();
+        }
+        return count;
+    }
+
+    /**
+     * Wait (up to one second) for the queued records to be written
+     */
+    @Override
+    public void flush() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (buffer.size() > 0 && writer.isAlive() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(WAIT_NANOS);
+        }
+    }
+
+    /**
+     * Stop accepting records, write what is queued and close the wrapped handler
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.close();
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return number of records whose caller had to wait for a free slot
+     */
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    /**
+     * @return number of records that found the buffer full
+     */
+    public long getOverflows() {
+        return overflows.sum();
+    }
+
+    public int getQueued() {
+        return buffer.size();
+    }
+
+    /**
+     * Get logging statistics (for debugging)
+     * @return String with queued, written, dropped and blocked counts
+     */
+    public String getStats() {
+        return String.format("Async log %s, queued: %d/%d, published: %d, written: %d, overflows: %d, blocked: %d, dropped: %d",
+            policy, getQueued(), buffer.capacity(), getPublished(), getWritten(), getOverflows(), getBlocked(), getDropped());
+    }
+}
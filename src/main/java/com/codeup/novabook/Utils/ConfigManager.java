@@ -91,6 +91,34 @@ public class ConfigManager {
         return getIntProperty("database.pool.connectionTimeout", 30000);
     }
     
+    public String getPoolValidationQuery() {
+        return getProperty("database.pool.validationQuery", "SELECT 1");
+    }
+    
+    public int getPoolEvictionInterval() {
+        return getIntProperty("database.pool.evictionInterval", 60000);
+    }
+    
+    public int getPageSize() {
+        return getIntProperty("database.page.size", 500);
+    }
+    
+    public int getStreamingFetchSize() {
+        return getIntProperty("database.streaming.fetchSize", 0);
+    }
+    
+    public int getBookCacheSize() {
+        return getIntProperty("cache.books.maxSize", 1000);
+    }
+    
+    public int getPartnerCacheSize() {
+        return getIntProperty("cache.partners.maxSize", 1000);
+    }
+    
+    public int getPartnerCacheTtl() {
+        return getIntProperty("cache.partners.ttl", 300000);
+    }
+    
     // =======================================================================
     // BUSINESS LOGIC CONFIGURATION METHODS
     // =======================================================================
@@ -107,6 +135,20 @@ public class ConfigManager {
         return getIntProperty("loan.max.books.per.user", 3);
     }
     
+    /**
+     * Loans processed per transaction by the batch checkout and return operations
+     */
+    public int getLoanBatchSize() {
+        return getIntProperty("loan.batch.size", 200);
+    }
+    
+    /**
+     * Loans updated per statement by the fine recalculation
+     */
+    public int getFineBatchSize() {
+        return getIntProperty("loan.fine.batch.size", 5000);
+    }
+    
     // =======================================================================
     // VALIDATION CONFIGURATION METHODS
     // =======================================================================
@@ -147,6 +189,53 @@ public class ConfigManager {
         return getIntProperty("logging.max.files", 5);
     }
     
+    /**
+     * Write log files from a background thread instead of the caller's thread
+     */
+    public boolean isAsyncLoggingEnabled() {
+        return getBooleanProperty("logging.async.enabled", true);
+    }
+    
+    public int getAsyncLogBufferSize() {
+        return getIntProperty("logging.async.buffer.size", 8192);
+    }
+    
+    /**
+     * What to do when the async log buffer is full: DROP, BLOCK or SAMPLE
+     */
+    public String getAsyncLogOverflowPolicy() {
+        return getProperty("logging.async.overflow", "BLOCK");
+    }
+    
+    public int getAsyncLogSampleRate() {
+        return getIntProperty("logging.async.sample.rate", 10);
+    }
+    
+    /**
+     * Write database events as JSON lines (rolled with logging.max.file.size and logging.max.files)
+     */
+    public boolean isEventLogEnabled() {
+        return getBooleanProperty("logging.events.enabled", true);
+    }
+    
+    public String getEventLogFilePath() {
+        return getProperty("logging.events.file.path", "logs/events.jsonl");
+    }
+    
+    /**
+     * Time every statement per DAO operation (pool wait time is always recorded)
+     */
+    public boolean isMetricsEnabled() {
+        return getBooleanProperty("metrics.enabled", true);
+    }
+    
+    /**
+     * File the DAO latency snapshot is appended to on shutdown (empty to skip)
+     */
+    public String getMetricsDumpFile() {
+        return getProperty("metrics.dump.file", "logs/dao-metrics.jsonl");
+    }
+    
     // =======================================================================
     // APPLICATION CONFIGURATION METHODS
     // =======================================================================
@@ -187,6 +276,10 @@ public class ConfigManager {
         return getBooleanProperty("reports.include.headers", true);
     }
     
+    public int getImportBatchSize() {
+        return getIntProperty("reports.import.batch.size", 1000);
+    }
+    
     // =======================================================================
     // UI CONFIGURATION METHODS
     // =======================================================================
@@ -203,6 +296,18 @@ public class ConfigManager {
         return getProperty("ui.language", "es");
     }
     
+    public int getSearchDebounceMillis() {
+        return getIntProperty("ui.search.debounce.ms", 300);
+    }
+    
+    public int getStatisticsRefreshSeconds() {
+        return getIntProperty("ui.statistics.refresh.seconds", 10);
+    }
+    
+    public int getPickerPageSize() {
+        return getIntProperty("ui.picker.page.size", 50);
+    }
+    
     // =======================================================================
     // SECURITY CONFIGURATION METHODS
     // =======================================================================
@@ -225,13 +330,15 @@ public class ConfigManager {
     
     /**
      * Get string property with default value
+     * A JVM system property with the same key (e.g. -Ddatabase.url=...) takes
+     * precedence over config.properties
      * @param key Property key
      * @param defaultValue Default value if property not found
      * @return Property value or default
      */
     public String getProperty(String key, String defaultValue) {
-        String value = properties.getProperty(key, defaultValue);
-        LOGGER.fine("Configuration: " + key + " = " + value);
+        String value = System.getProperty(key, properties.getProperty(key, defaultValue));
+        AppLogger.log(LOGGER, Level.FINE, "Configuration: {0} = {1}", key, value);
         return value;
     }
     
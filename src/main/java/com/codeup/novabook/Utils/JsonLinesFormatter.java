@@ -0,0 +1,112 @@
+package com.codeup.novabook.Utils;
+
+import java.time.format.DateTimeFormatter;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+
+/**
+ * Formats database events as one compact JSON object per line, e.g.
+ * {"ts":"2024-03-20T10:15:30.123Z","op":"INSERT","table":"Prestamo","duration_ms":4.217,"success":true,"correlation_id":"k3x9-12","thread":"JavaFX Application Thread","details":"..."}
+ *
+ * The record parameters are, in order: operation, table, duration in
+ * nanoseconds (Long, or null when not measured), success (Boolean),
+ * correlation id, thread name and details (all optional strings).
+ * Null values are left out of the line.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public class JsonLinesFormatter extends Formatter {
+
+    static final int OPERATION = 0;
+    static final int TABLE = 1;
+    static final int DURATION = 2;
+    static final int SUCCESS = 3;
+    static final int CORRELATION_ID = 4;
+    static final int THREAD = 5;
+    static final int DETAILS = 6;
+    static final int FIELD_COUNT = 7;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ThreadLocal<StringBuilder> buffer = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    @Override
+    public String format(LogRecord record) {
+        Object[] values = record.getParameters();
+        if (values == null || values.length < FIELD_COUNT) {
+            values = new Object[FIELD_COUNT];
+            values[DETAILS] = record.getMessage();
+        }
+
+        StringBuilder line = buffer.get();
+        line.setLength(0);
+        line.append("{\"ts\":\"");
+        DateTimeFormatter.ISO_INSTANT.formatTo(record.getInstant(), line);
+        line.append('"');
+        appendString(line, "op", values[OPERATION]);
+        appendString(line, "table", values[TABLE]);
+        if (values[DURATION] instanceof Long) {
+            // Milliseconds with microsecond precision, without going through double formatting
+            long micros = (Long) values[DURATION] / 1000;
+            line.append(",\"duration_ms\":").append(micros / 1000).append('.');
+            long fraction = micros % 1000;
+            if (fraction < 100) {
+                line.append('0');
+            }
+            if (fraction < 10) {
+                line.append('0');
+            }
+            line.append(fraction);
+        }
+        if (values[SUCCESS] != null) {
+            line.append(",\"success\":").append(values[SUCCESS]);
+        }
+        appendString(line, "correlation_id", values[CORRELATION_ID]);
+        appendString(line, "thread", values[THREAD]);
+        appendString(line, "details", values[DETAILS]);
+        line.append('}').append('\n');
+        return line.toString();
+    }
+
+    private static void appendString(StringBuilder line, String name, Object value) {
+        if (value == null) {
+            return;
+        }
+        line.append(",\"").append(name).append("\":\"");
+        escape(line, value.toString());
+        line.append('"');
+    }
+
+    /**
+     * Append a value escaped for use inside a JSON string (quotes not included)
+     */
+    public static void escape(StringBuilder line, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        line.append(c);
+                    }
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.codeup.novabook.Utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.LogRecord;
+
+/**
+ * Bounded lock-free queue of log records for many producers and one consumer.
+ *
+ * The slots are allocated once. Each slot carries a sequence number that tells
+ * producers when it is free and the consumer when it is filled, so offer() is a
+ * single compare-and-set on the tail and poll() takes no lock at all.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+class LogRingBuffer {
+
+    private final LogRecord[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    /**
+     * @param capacity requested capacity, rounded up to a power of two
+     */
+    LogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new LogRecord[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Add a record without waiting
+     * @return false if the buffer is full
+     */
+    boolean offer(LogRecord record) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = record;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Take the oldest record; must only be called from the consumer thread
+     * @return the record, or null if the buffer is empty
+     */
+    LogRecord poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        LogRecord record = slots[index];
+        slots[index] = null;
+        sequences.lazySet(index, position + slots.length);
+        head = position + 1;
+        return record;
+    }
+
+    /**
+     * @return approximate number of queued records
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
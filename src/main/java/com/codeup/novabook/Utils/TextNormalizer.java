@@ -0,0 +1,58 @@
+package com.codeup.novabook.Utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Text folding shared by the in-memory searches
+ *
+ * Folding lower-cases text and strips accents, which is how the
+ * utf8mb4_unicode_ci collation of the database compares strings, so
+ * in-memory matches agree with LIKE queries.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public final class TextNormalizer {
+    
+    private TextNormalizer() {
+    }
+    
+    /**
+     * Lower-case the text and strip accents ("Márquez" -> "marquez", "Peña" -> "pena")
+     * @param text text to fold (null is treated as empty)
+     * @return folded text
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            ascii = text.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            return text.toLowerCase(Locale.ROOT);
+        }
+        
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Case- and accent-insensitive "contains", like SQL LIKE '%query%'
+     * @param text text to search in
+     * @param foldedQuery query already passed through fold()
+     * @return true if the folded text contains the query
+     */
+    public static boolean containsFolded(String text, String foldedQuery) {
+        return fold(text).contains(foldedQuery);
+    }
+}
@@ -0,0 +1,111 @@
+package com.codeup.novabook.Views;
+
+import com.codeup.novabook.Utils.AppLogger;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import javafx.scene.control.ProgressIndicator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs view data loads off the JavaFX application thread
+ *
+ * Each view owns one loader per kind of data it shows. Starting a load
+ * cancels the one still running on the same loader, and only the result of
+ * the latest load is handed back, on the JavaFX thread. The loader's
+ * progress indicator is visible while a load is running, so the view can
+ * place it next to its controls.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public class BackgroundLoader {
+    
+    // Shared by all views; daemon threads so they never keep the application alive
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "view-loader-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final String component;
+    private final ProgressIndicator progressIndicator;
+    private Task<?> current;
+    
+    /**
+     * @param component name used when logging failed loads
+     */
+    public BackgroundLoader(String component) {
+        this.component = component;
+        this.progressIndicator = new ProgressIndicator();
+        this.progressIndicator.setPrefSize(20, 20);
+        this.progressIndicator.setVisible(false);
+    }
+    
+    public ProgressIndicator getProgressIndicator() {
+        return progressIndicator;
+    }
+    
+    /**
+     * Run work in the background, replacing the load still running (if any)
+     * @param work database call to run off the JavaFX thread
+     * @param onSuccess receives the result on the JavaFX thread
+     * @param onError receives the failure on the JavaFX thread
+     */
+    public <T> void load(Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> load(work, onSuccess, onError));
+            return;
+        }
+        
+        cancel();
+        
+        Task<T> task = new Task<T>() {
+            @Override
+            protected T call() throws Exception {
+                return work.call();
+            }
+        };
+        // Results of superseded loads are dropped even if they finished before being cancelled
+        task.setOnSucceeded(e -> {
+            if (current == task) {
+                finished();
+                onSuccess.accept(task.getValue());
+            }
+        });
+        task.setOnFailed(e -> {
+            if (current == task) {
+                finished();
+                AppLogger.logError(component, "Background load failed", task.getException());
+                onError.accept(task.getException());
+            }
+        });
+        
+        current = task;
+        progressIndicator.setVisible(true);
+        EXECUTOR.submit(task);
+    }
+    
+    /**
+     * Cancel the running load; its result will not be delivered
+     */
+    public void cancel() {
+        if (current != null) {
+            Task<?> running = current;
+            finished();
+            running.cancel(true);
+        }
+    }
+    
+    public boolean isLoading() {
+        return current != null;
+    }
+    
+    private void finished() {
+        current = null;
+        progressIndicator.setVisible(false);
+    }
+}
@@ -9,7 +9,9 @@ package com.codeup.novabook.Views;
  * @author Coder
  */
 import com.codeup.novabook.Models.DAO.BookDAO;
+import com.codeup.novabook.Models.DAO.BookSearchIndex;
 import com.codeup.novabook.Models.Entity.Book;
+import com.codeup.novabook.Utils.ConfigManager;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -24,7 +26,6 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 
 public class BooksView {
@@ -39,10 +40,23 @@ public class BooksView {
     private TextField txtSearch;
     private Label lblTotal;
     private Label lblSelected;
-    private Button btnAdd, btnEdit, btnDelete, btnRefresh, btnBack;
+    private Button btnAdd, btnEdit, btnDelete, btnRefresh, btnBack, btnLoadMore;
     
     private ObservableList<Book> booksList;
     
+    // Keyset pagination state
+    private final int pageSize = ConfigManager.getInstance().getPageSize();
+    private int lastBookId;
+    private boolean hasMoreBooks;
+    
+    // Database loads run off the JavaFX thread
+    private final BackgroundLoader loader = new BackgroundLoader("BooksView");
+    private final BackgroundLoader indexLoader = new BackgroundLoader("BooksView");
+    
+    // Debounced search state: the filter of the rows currently shown
+    private DebouncedSearch search;
+    private String currentFilter = "";
+    
     public BooksView(Stage primaryStage, String userRole) {
         this.primaryStage = primaryStage;
         this.userRole = userRole;
@@ -53,6 +67,7 @@ public class BooksView {
         createLayout();
         setupEventHandlers();
         loadBooks();
+        buildSearchIndex();
     }
     
     private void initializeComponents() {
@@ -105,6 +120,7 @@ public class BooksView {
         btnDelete = createButton("Delete", "#f44336");
         btnRefresh = createButton("Refresh", "#2196F3");
         btnBack = createButton("Back", "#9E9E9E");
+        btnLoadMore = createButton("Load More", "#607D8B");
     }
     
     private Button createButton(String text, String color) {
@@ -152,7 +168,7 @@ public class BooksView {
         Region spacer2 = new Region();
         HBox.setHgrow(spacer2, Priority.ALWAYS);
         
-        bottomPanel.getChildren().addAll(lblTotal, spacer2, lblSelected);
+        bottomPanel.getChildren().addAll(lblTotal, btnLoadMore, loader.getProgressIndicator(), spacer2, lblSelected);
         
         // Ensamblar layout
         root.setTop(topPanel);
@@ -167,9 +183,10 @@ public class BooksView {
         btnAdd.setOnAction(e -> showAddDialog());
         btnEdit.setOnAction(e -> showEditDialog());
         btnDelete.setOnAction(e -> deleteBook());
-        btnRefresh.setOnAction(e -> loadBooks());
+        btnRefresh.setOnAction(e -> refreshBooks());
+        btnLoadMore.setOnAction(e -> loadMoreBooks());
         
-        txtSearch.textProperty().addListener((obs, oldVal, newVal) -> searchBooks());
+        search = new DebouncedSearch(txtSearch, this::searchBooks);
         
         tableBooks.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if (newSelection != null) {
@@ -188,37 +205,96 @@ public class BooksView {
         btnDelete.setDisable(true);
     }
     
+    /**
+     * Load the first page of books matching the current search text
+     */
     private void loadBooks() {
-        try {
-            List<Book> books = bookDAO.listar();
-            booksList.clear();
-            booksList.addAll(books);
-            lblTotal.setText("Total books: " + books.size());
-        } catch (SQLException e) {
-            showError("Error loading books", "No se pudieron cargar los libros: " + e.getMessage());
+        booksList.clear();
+        lastBookId = 0;
+        hasMoreBooks = false;
+        loadMoreBooks();
+    }
+    
+    /**
+     * Append the next page of books after the last one shown
+     */
+    private void loadMoreBooks() {
+        int afterId = lastBookId;
+        String filter = currentFilter;
+        btnLoadMore.setDisable(true);
+        
+        loader.load(() -> bookDAO.listarPagina(afterId, pageSize, filter), page -> {
+            booksList.addAll(page.getItems());
+            if (!page.isEmpty()) {
+                lastBookId = page.getLastId();
+            }
+            hasMoreBooks = page.hasMore();
+            updateTotalLabel();
+        }, e -> showError("Error loading books", "No se pudieron cargar los libros: " + e.getMessage()));
+    }
+    
+    private void updateTotalLabel() {
+        if (hasMoreBooks) {
+            lblTotal.setText("Showing first " + booksList.size() + " books");
+        } else {
+            lblTotal.setText("Total books: " + booksList.size());
         }
+        btnLoadMore.setDisable(!hasMoreBooks);
     }
     
-    private void searchBooks() {
-        String searchText = txtSearch.getText().toLowerCase();
-        if (searchText.isEmpty()) {
+    /**
+     * Run a settled search. Once the in-memory index is loaded it answers the
+     * query on the loader thread; until then the text is applied as a
+     * server-side filter. Either way the load replaces the one still running.
+     */
+    private void searchBooks(String query) {
+        currentFilter = query;
+        BookSearchIndex index = BookDAO.getSearchIndex();
+        if (query.isEmpty() || !index.isReady()) {
             loadBooks();
             return;
         }
         
-        try {
-            List<Book> allBooks = bookDAO.listar();
-            List<Book> filteredBooks = allBooks.stream()
-                    .filter(book -> book.getTitulo().toLowerCase().contains(searchText) ||
-                                   book.getAutor().toLowerCase().contains(searchText))
-                    .toList();
-            
-            booksList.clear();
-            booksList.addAll(filteredBooks);
-            lblTotal.setText("Total books: " + filteredBooks.size());
-        } catch (SQLException e) {
-            showError("Search error", "Error al buscar libros: " + e.getMessage());
+        btnLoadMore.setDisable(true);
+        loader.load(() -> index.search(query, pageSize), matches -> {
+            booksList.setAll(matches);
+            hasMoreBooks = false;
+            lblTotal.setText("Best matches: " + matches.size());
+        }, e -> showError("Error searching books", "No se pudieron buscar los libros: " + e.getMessage()));
+    }
+    
+    /**
+     * Search again now, and once more after the index has picked up the
+     * changes made from other desks
+     */
+    private void refreshBooks() {
+        search.runNow();
+        if (!BookDAO.getSearchIndex().isReady()) {
+            return;
         }
+        indexLoader.load(() -> {
+            bookDAO.recargarIndiceBusqueda();
+            return null;
+        }, ignored -> search.runNow(), e -> showError("Error refreshing books",
+                "No se pudo recargar el índice de búsqueda: " + e.getMessage()));
+    }
+    
+    /**
+     * Load the in-memory search index in the background (once per application run)
+     */
+    private void buildSearchIndex() {
+        if (BookDAO.getSearchIndex().isReady()) {
+            return;
+        }
+        indexLoader.load(() -> {
+            bookDAO.cargarIndiceBusqueda();
+            return null;
+        }, ignored -> {
+            // Switch a search typed while the index was loading over to the index
+            if (!search.getQuery().isEmpty()) {
+                search.runNow();
+            }
+        }, e -> lblTotal.setText(lblTotal.getText() + " (search index unavailable)"));
     }
     
     private void showAddDialog() {
@@ -231,7 +307,7 @@ public class BooksView {
                 book.setFechaAlta(LocalDateTime.now());
                 book.setDisponible(true);
                 bookDAO.agregar(book);
-                loadBooks();
+                search.runNow();
                 showInfo("Success", "Libro agregado correctamente");
             } catch (SQLException e) {
                 showError("Error", "No se pudo agregar el libro: " + e.getMessage());
@@ -252,7 +328,7 @@ public class BooksView {
         if (result.isPresent()) {
             try {
                 bookDAO.actualizar(result.get());
-                loadBooks();
+                search.runNow();
                 showInfo("Success", "Book added successfully");
             } catch (SQLException e) {
                 showError("Error", "No se pudo actualizar el libro: " + e.getMessage());
@@ -276,7 +352,7 @@ public class BooksView {
         if (result.isPresent() && result.get() == ButtonType.OK) {
             try {
                 bookDAO.eliminar(selectedBook.getId());
-                loadBooks();
+                search.runNow();
                 showInfo("Success", "Libro eliminado correctamente");
             } catch (SQLException e) {
                 showError("Error", "No se pudo eliminar el libro: " + e.getMessage());
@@ -0,0 +1,90 @@
+package com.codeup.novabook.Views;
+
+import com.codeup.novabook.Utils.ConfigManager;
+import com.codeup.novabook.Utils.TextNormalizer;
+import javafx.animation.PauseTransition;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a search once the user stops typing in a search field
+ *
+ * Every key press restarts a short pause (ui.search.debounce.ms); the search
+ * callback only runs when the pause ends, with the settled text. The last
+ * query that ran is remembered so the view can tell whether the new query
+ * can only narrow the results it already has.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public class DebouncedSearch {
+    
+    private final TextField field;
+    private final PauseTransition pause;
+    private final Consumer<String> onSearch;
+    private String lastQuery = "";
+    
+    /**
+     * @param field search field to watch
+     * @param onSearch receives the trimmed query on the JavaFX thread
+     */
+    public DebouncedSearch(TextField field, Consumer<String> onSearch) {
+        this.field = field;
+        this.onSearch = onSearch;
+        this.pause = new PauseTransition(Duration.millis(ConfigManager.getInstance().getSearchDebounceMillis()));
+        this.pause.setOnFinished(e -> runNow());
+        field.textProperty().addListener((obs, oldVal, newVal) -> pause.playFromStart());
+    }
+    
+    /**
+     * Skip the pause and search with the current text (e.g. for Refresh)
+     */
+    public void runNow() {
+        pause.stop();
+        String query = getQuery();
+        onSearch.accept(query);
+        lastQuery = query;
+    }
+    
+    /**
+     * @return the trimmed text of the search field
+     */
+    public String getQuery() {
+        String text = field.getText();
+        return text != null ? text.trim() : "";
+    }
+    
+    /**
+     * A query narrows the previous one when it contains it: every row matching
+     * LIKE '%query%' also matched the previous query, so the previous results
+     * can be filtered in memory instead of asking the database again.
+     * @param query new trimmed query
+     * @return true if the results of the last query are a superset of this query's results
+     */
+    public boolean narrows(String query) {
+        return !lastQuery.isEmpty() && !query.equals(lastQuery)
+                && TextNormalizer.fold(query).contains(TextNormalizer.fold(lastQuery));
+    }
+    
+    /**
+     * Narrow rows already shown to a query, in memory: a row stays if any of
+     * the given columns contains the query, the match the paged LIKE filter applies
+     * @param rows rows of the previous query, filtered in place
+     * @param query new trimmed query
+     * @param columns columns the LIKE filter searches
+     */
+    @SafeVarargs
+    public static <T> void keepMatching(List<T> rows, String query, Function<T, String>... columns) {
+        String folded = TextNormalizer.fold(query);
+        rows.removeIf(row -> {
+            for (Function<T, String> column : columns) {
+                if (TextNormalizer.containsFolded(column.apply(row), folded)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+}
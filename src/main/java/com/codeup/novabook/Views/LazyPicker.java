@@ -0,0 +1,130 @@
+package com.codeup.novabook.Views;
+
+import com.codeup.novabook.Models.DAO.Page;
+import com.codeup.novabook.Utils.ConfigManager;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import java.util.function.Function;
+
+/**
+ * Searchable list that loads its rows page by page
+ *
+ * Typing in the filter field (debounced) asks the source for the first page
+ * matching the text; scrolling to the last row loads the next page. Loads run
+ * in the background, so the dialog hosting the picker opens immediately
+ * however large the underlying table is.
+ *
+ * @author Luis Alfredo - Clan Cienaga
+ */
+public class LazyPicker<T> {
+    
+    /**
+     * Fetches one keyset page of rows matching a filter
+     */
+    @FunctionalInterface
+    public interface PageSource<T> {
+        Page<T> fetch(int afterId, int limit, String filter) throws Exception;
+    }
+    
+    private final PageSource<T> source;
+    private final int pageSize = ConfigManager.getInstance().getPickerPageSize();
+    private final TextField txtFilter;
+    private final ListView<T> listView;
+    private final Label lblStatus;
+    private final VBox root;
+    private final BackgroundLoader loader;
+    
+    private String filter = "";
+    private int lastId;
+    private boolean hasMore;
+    
+    /**
+     * @param prompt prompt text of the filter field
+     * @param source page query (run off the JavaFX thread)
+     * @param formatter text shown for each row
+     */
+    public LazyPicker(String prompt, PageSource<T> source, Function<T, String> formatter) {
+        this.source = source;
+        this.loader = new BackgroundLoader("LazyPicker");
+        
+        txtFilter = new TextField();
+        txtFilter.setPromptText(prompt);
+        
+        listView = new ListView<>();
+        listView.setPrefHeight(150);
+        listView.setCellFactory(lv -> new ListCell<T>() {
+            @Override
+            protected void updateItem(T item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : formatter.apply(item));
+                
+                // Reaching the last row pulls in the next page
+                if (!empty && item != null && hasMore && !loader.isLoading()
+                        && getIndex() == listView.getItems().size() - 1) {
+                    loadMore();
+                }
+            }
+        });
+        
+        lblStatus = new Label();
+        lblStatus.setStyle("-fx-text-fill: gray; -fx-font-size: 11px;");
+        
+        HBox filterBox = new HBox(5, txtFilter, loader.getProgressIndicator());
+        HBox.setHgrow(txtFilter, Priority.ALWAYS);
+        root = new VBox(5, filterBox, listView, lblStatus);
+        
+        new DebouncedSearch(txtFilter, query -> {
+            filter = query;
+            reload();
+        });
+        reload();
+    }
+    
+    public VBox getNode() {
+        return root;
+    }
+    
+    public T getValue() {
+        return listView.getSelectionModel().getSelectedItem();
+    }
+    
+    public ReadOnlyObjectProperty<T> valueProperty() {
+        return listView.getSelectionModel().selectedItemProperty();
+    }
+    
+    public void setPrefWidth(double width) {
+        root.setPrefWidth(width);
+    }
+    
+    private void reload() {
+        listView.getItems().clear();
+        lastId = 0;
+        hasMore = false;
+        loadMore();
+    }
+    
+    private void loadMore() {
+        int afterId = lastId;
+        String currentFilter = filter;
+        
+        loader.load(() -> source.fetch(afterId, pageSize, currentFilter), page -> {
+            listView.getItems().addAll(page.getItems());
+            if (!page.isEmpty()) {
+                lastId = page.getLastId();
+            }
+            hasMore = page.hasMore();
+            
+            if (listView.getItems().isEmpty()) {
+                lblStatus.setText(currentFilter.isEmpty() ? "Nothing to select" : "No matches");
+            } else {
+                lblStatus.setText(listView.getItems().size() + (hasMore ? "+ shown, scroll for more" : " shown"));
+            }
+        }, e -> lblStatus.setText("Could not load: " + e.getMessage()));
+    }
+}
@@ -9,11 +9,17 @@ package com.codeup.novabook.Views;
  * @author Coder
  */
 import com.codeup.novabook.Models.DAO.LoanDAO;
+import com.codeup.novabook.Models.DAO.LoanReturn;
 import com.codeup.novabook.Models.DAO.BookDAO;
 import com.codeup.novabook.Models.DAO.PartnerDAO;
+import com.codeup.novabook.Models.DAO.LoanCriteria;
 import com.codeup.novabook.Models.Entity.Loan;
 import com.codeup.novabook.Models.Entity.Book;
 import com.codeup.novabook.Models.Entity.Partner;
+import com.codeup.novabook.Utils.ConfigManager;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -25,9 +31,9 @@ import javafx.scene.layout.*;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import java.sql.SQLException;
 import java.time.LocalDate;
-import java.util.List;
 import java.util.Optional;
 
 public class LoansView {
@@ -41,11 +47,26 @@ public class LoansView {
     
     private TableView<Loan> tableLoans;
     private ComboBox<String> cmbFilter;
-    private Label lblTotal, lblActive, lblOverdue;
-    private Button btnAdd, btnReturn, btnRefresh, btnBack;
+    private DatePicker dpFrom, dpTo;
+    private Label lblTotal, lblActive, lblReturned, lblOverdue;
+    private Button btnAdd, btnReturn, btnRefresh, btnBack, btnLoadMore;
     
     private ObservableList<Loan> loansList;
     
+    // Keyset pagination state for the current filter
+    private final int pageSize = ConfigManager.getInstance().getPageSize();
+    private LoanCriteria currentCriteria = new LoanCriteria();
+    private int lastLoanId;
+    private boolean hasMoreLoans;
+    
+    // Database loads run off the JavaFX thread
+    private final BackgroundLoader loader = new BackgroundLoader("LoansView");
+    private final BackgroundLoader statisticsLoader = new BackgroundLoader("LoansView");
+    private final BackgroundLoader trackerLoader = new BackgroundLoader("LoansView");
+    
+    // Periodic refresh of the header counters (one aggregate query each time)
+    private Timeline statisticsRefresh;
+    
     public LoansView(Stage primaryStage, String userRole) {
         this.primaryStage = primaryStage;
         this.userRole = userRole;
@@ -58,6 +79,8 @@ public class LoansView {
         createLayout();
         setupEventHandlers();
         loadLoans();
+        startStatisticsRefresh();
+        loadOverdueTracker();
     }
     
     private void initializeComponents() {
@@ -109,8 +132,16 @@ public class LoansView {
         cmbFilter.setValue("All");
         cmbFilter.setPrefWidth(150);
         
+        dpFrom = new DatePicker();
+        dpFrom.setPromptText("From");
+        dpFrom.setPrefWidth(120);
+        dpTo = new DatePicker();
+        dpTo.setPromptText("To");
+        dpTo.setPrefWidth(120);
+        
         lblTotal = new Label("Total loans: 0");
         lblActive = new Label("Active: 0");
+        lblReturned = new Label("Returned: 0");
         lblOverdue = new Label("Overdue: 0");
         
         // Botones
@@ -118,6 +149,7 @@ public class LoansView {
         btnReturn = createButton("Return Book", "#FF9800");
         btnRefresh = createButton("Refresh", "#2196F3");
         btnBack = createButton("Back", "#9E9E9E");
+        btnLoadMore = createButton("Load More", "#607D8B");
     }
     
     private Button createButton(String text, String color) {
@@ -152,7 +184,7 @@ public class LoansView {
         controlsBox.setAlignment(Pos.CENTER_LEFT);
         
         Label lblFilter = new Label("Filter:");
-        controlsBox.getChildren().addAll(lblFilter, cmbFilter, btnAdd, btnReturn, btnRefresh);
+        controlsBox.getChildren().addAll(lblFilter, cmbFilter, dpFrom, dpTo, btnAdd, btnReturn, btnRefresh);
         
         topPanel.getChildren().addAll(titleBox, controlsBox);
         
@@ -166,8 +198,10 @@ public class LoansView {
         sep1.setOrientation(javafx.geometry.Orientation.VERTICAL);
         Separator sep2 = new Separator();
         sep2.setOrientation(javafx.geometry.Orientation.VERTICAL);
+        Separator sep3 = new Separator();
+        sep3.setOrientation(javafx.geometry.Orientation.VERTICAL);
         
-        bottomPanel.getChildren().addAll(lblTotal, sep1, lblActive, sep2, lblOverdue);
+        bottomPanel.getChildren().addAll(lblTotal, btnLoadMore, loader.getProgressIndicator(), sep1, lblActive, sep2, lblReturned, sep3, lblOverdue);
         
         root.setTop(topPanel);
         root.setCenter(tableLoans);
@@ -181,8 +215,11 @@ public class LoansView {
         btnAdd.setOnAction(e -> showAddDialog());
         btnReturn.setOnAction(e -> returnBook());
         btnRefresh.setOnAction(e -> loadLoans());
+        btnLoadMore.setOnAction(e -> loadMoreLoans());
         
         cmbFilter.setOnAction(e -> filterLoans());
+        dpFrom.setOnAction(e -> filterLoans());
+        dpTo.setOnAction(e -> filterLoans());
         
         btnReturn.setDisable(true);
         
@@ -191,49 +228,104 @@ public class LoansView {
         });
     }
     
+    /**
+     * Load the first page of loans matching the current filter and refresh the statistics
+     */
     private void loadLoans() {
-        try {
-            List<Loan> loans = loanDAO.listar();
-            loansList.clear();
-            loansList.addAll(loans);
-            
-            long activeCount = loans.stream().filter(loan -> !loan.isDevuelto()).count();
-            long overdueCount = loanDAO.listarPrestamosVencidos().size();
-            
-            lblTotal.setText("Total loans: " + loans.size());
-            lblActive.setText("Active: " + activeCount);
-            lblOverdue.setText("Overdue: " + overdueCount);
-        } catch (SQLException e) {
-            showError("Error loading loans", "Could not load loans: " + e.getMessage());
+        loansList.clear();
+        lastLoanId = 0;
+        hasMoreLoans = false;
+        loadMoreLoans();
+        loadStatistics();
+    }
+    
+    /**
+     * Append the next page of loans after the last one shown
+     */
+    private void loadMoreLoans() {
+        int beforeId = lastLoanId;
+        LoanCriteria criteria = currentCriteria;
+        btnLoadMore.setDisable(true);
+        
+        loader.load(() -> loanDAO.listarPagina(criteria, beforeId, pageSize), page -> {
+            loansList.addAll(page.getItems());
+            if (!page.isEmpty()) {
+                lastLoanId = page.getLastId();
+            }
+            hasMoreLoans = page.hasMore();
+            updateTotalLabel();
+        }, e -> showError("Error loading loans", "Could not load loans: " + e.getMessage()));
+    }
+    
+    private void loadStatistics() {
+        statisticsLoader.load(loanDAO::obtenerEstadisticas, stats -> {
+            lblActive.setText("Active: " + stats.getActivos());
+            lblReturned.setText("Returned: " + stats.getDevueltos());
+            lblOverdue.setText("Overdue: " + stats.getVencidos());
+        }, e -> showError("Error loading loans", "Could not load loan statistics: " + e.getMessage()));
+    }
+    
+    private void startStatisticsRefresh() {
+        int seconds = ConfigManager.getInstance().getStatisticsRefreshSeconds();
+        if (seconds <= 0) {
+            return;
+        }
+        statisticsRefresh = new Timeline(new KeyFrame(Duration.seconds(seconds), e -> {
+            if (!statisticsLoader.isLoading()) {
+                loadStatistics();
+            }
+        }));
+        statisticsRefresh.setCycleCount(Animation.INDEFINITE);
+        statisticsRefresh.play();
+    }
+    
+    /**
+     * Load active loans into the overdue tracker once, so overdue reports stop querying the database
+     */
+    private void loadOverdueTracker() {
+        if (LoanDAO.getOverdueTracker().isReady()) {
+            return;
+        }
+        trackerLoader.load(() -> {
+            loanDAO.cargarSeguimientoVencimientos();
+            return null;
+        }, ignored -> { }, e -> lblOverdue.setText(lblOverdue.getText() + " (tracker unavailable)"));
+    }
+    
+    private void updateTotalLabel() {
+        if (hasMoreLoans) {
+            lblTotal.setText("Showing first " + loansList.size() + " loans");
+        } else {
+            lblTotal.setText("Total loans: " + loansList.size());
         }
+        btnLoadMore.setDisable(!hasMoreLoans);
     }
     
+    /**
+     * Turn the filter controls into criteria and reload the first page;
+     * the filtering itself is done by the database
+     */
     private void filterLoans() {
-        String filter = cmbFilter.getValue();
-        try {
-            List<Loan> filteredLoans;
-            switch (filter) {
-                case "Active":
-                    filteredLoans = loanDAO.listarPrestamosActivos();
-                    break;
-                case "Returned":
-                    filteredLoans = loanDAO.listar().stream()
-                            .filter(Loan::isDevuelto)
-                            .toList();
-                    break;
-                case "Overdue":
-                    filteredLoans = loanDAO.listarPrestamosVencidos();
-                    break;
-                default:
-                    filteredLoans = loanDAO.listar();
-                    break;
-            }
-            
-            loansList.clear();
-            loansList.addAll(filteredLoans);
-        } catch (SQLException e) {
-            showError("Filter error", "Error applying filter: " + e.getMessage());
+        LoanCriteria criteria = new LoanCriteria();
+        switch (cmbFilter.getValue()) {
+            case "Active":
+                criteria.setEstado(LoanCriteria.Estado.ACTIVOS);
+                break;
+            case "Returned":
+                criteria.setEstado(LoanCriteria.Estado.DEVUELTOS);
+                break;
+            case "Overdue":
+                criteria.setEstado(LoanCriteria.Estado.VENCIDOS);
+                break;
+            default:
+                criteria.setEstado(LoanCriteria.Estado.TODOS);
+                break;
         }
+        criteria.setDesde(dpFrom.getValue());
+        criteria.setHasta(dpTo.getValue());
+        
+        currentCriteria = criteria;
+        loadLoans();
     }
     
     private void showAddDialog() {
@@ -272,9 +364,16 @@ public class LoansView {
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
             try {
-                loanDAO.marcarComoDevuelto(selectedLoan.getId());
+                LoanReturn devolucion = loanDAO.marcarComoDevuelto(selectedLoan.getId());
                 loadLoans();
-                showInfo("Success", "Book returned successfully");
+                if (!devolucion.isDevuelto()) {
+                    showWarning("Warning", "This loan was already returned");
+                } else if (devolucion.getMulta().signum() > 0) {
+                    showInfo("Success", "Book returned " + devolucion.getDiasRetraso() + " day(s) late.\nFine: "
+                            + ConfigManager.getInstance().getCurrencySymbol() + devolucion.getMulta());
+                } else {
+                    showInfo("Success", "Book returned successfully");
+                }
             } catch (SQLException e) {
                 showError("Error", "Could not process return: " + e.getMessage());
             }
@@ -282,6 +381,10 @@ public class LoansView {
     }
     
     private void goBack() {
+        if (statisticsRefresh != null) {
+            statisticsRefresh.stop();
+        }
+        
         // Redirect to appropriate dashboard based on user role
         if ("Administrator".equals(userRole)) {
             AdminDashboardView adminDashboard = new AdminDashboardView(primaryStage, userRole);
@@ -329,8 +432,8 @@ public class LoansView {
     
     // Inner class for Loan Dialog
     private class LoanDialog extends Dialog<Loan> {
-        private ComboBox<Book> cmbBooks;
-        private ComboBox<Partner> cmbPartners;
+        private LazyPicker<Book> pickerBooks;
+        private LazyPicker<Partner> pickerPartners;
         private DatePicker datePickerLoan;
         private Label lblInstructions;
         
@@ -344,98 +447,21 @@ public class LoansView {
         }
         
         private void initializeComponents() {
-            cmbBooks = new ComboBox<>();
-            cmbPartners = new ComboBox<>();
             datePickerLoan = new DatePicker();
             lblInstructions = new Label("Select an available book and an active partner to create a loan.");
             
             // Set default date to today
             datePickerLoan.setValue(LocalDate.now());
             
-            // Load available books and active partners
-            loadAvailableBooks();
-            loadActivePartners();
+            // Searchable pickers: only the first page of available books and
+            // active partners is loaded, the rest on type-ahead or scroll
+            pickerBooks = new LazyPicker<>("Type a title, author or ISBN...",
+                    bookDAO::listarDisponibles,
+                    book -> book.getTitulo() + " - " + book.getAutor());
             
-            // Set custom cell factories for better display
-            cmbBooks.setCellFactory(lv -> new ListCell<Book>() {
-                @Override
-                protected void updateItem(Book book, boolean empty) {
-                    super.updateItem(book, empty);
-                    if (empty || book == null) {
-                        setText(null);
-                    } else {
-                        setText(book.getTitulo() + " - " + book.getAutor());
-                    }
-                }
-            });
-            
-            cmbBooks.setButtonCell(new ListCell<Book>() {
-                @Override
-                protected void updateItem(Book book, boolean empty) {
-                    super.updateItem(book, empty);
-                    if (empty || book == null) {
-                        setText("Select a book...");
-                    } else {
-                        setText(book.getTitulo() + " - " + book.getAutor());
-                    }
-                }
-            });
-            
-            cmbPartners.setCellFactory(lv -> new ListCell<Partner>() {
-                @Override
-                protected void updateItem(Partner partner, boolean empty) {
-                    super.updateItem(partner, empty);
-                    if (empty || partner == null) {
-                        setText(null);
-                    } else {
-                        setText(partner.getNombre() + " (" + partner.getEmail() + ")");
-                    }
-                }
-            });
-            
-            cmbPartners.setButtonCell(new ListCell<Partner>() {
-                @Override
-                protected void updateItem(Partner partner, boolean empty) {
-                    super.updateItem(partner, empty);
-                    if (empty || partner == null) {
-                        setText("Select a partner...");
-                    } else {
-                        setText(partner.getNombre() + " (" + partner.getEmail() + ")");
-                    }
-                }
-            });
-        }
-        
-        private void loadAvailableBooks() {
-            try {
-                List<Book> availableBooks = bookDAO.listar().stream()
-                        .filter(Book::isDisponible)
-                        .toList();
-                cmbBooks.getItems().addAll(availableBooks);
-                
-                if (availableBooks.isEmpty()) {
-                    cmbBooks.setDisable(true);
-                    lblInstructions.setText("No available books found. All books are currently on loan.");
-                    lblInstructions.setStyle("-fx-text-fill: orange;");
-                }
-            } catch (SQLException e) {
-                showError("Error", "Could not load available books: " + e.getMessage());
-            }
-        }
-        
-        private void loadActivePartners() {
-            try {
-                List<Partner> activePartners = partnerDAO.listarActivos();
-                cmbPartners.getItems().addAll(activePartners);
-                
-                if (activePartners.isEmpty()) {
-                    cmbPartners.setDisable(true);
-                    lblInstructions.setText("No active partners found. Please register partners first.");
-                    lblInstructions.setStyle("-fx-text-fill: orange;");
-                }
-            } catch (SQLException e) {
-                showError("Error", "Could not load active partners: " + e.getMessage());
-            }
+            pickerPartners = new LazyPicker<>("Type a name or email...",
+                    partnerDAO::listarActivosPagina,
+                    partner -> partner.getNombre() + " (" + partner.getEmail() + ")");
         }
         
         private void createDialogLayout() {
@@ -451,13 +477,13 @@ public class LoansView {
             
             // Book selection
             grid.add(new Label("Book:"), 0, 1);
-            grid.add(cmbBooks, 1, 1);
-            cmbBooks.setPrefWidth(300);
+            grid.add(pickerBooks.getNode(), 1, 1);
+            pickerBooks.setPrefWidth(300);
             
             // Partner selection
             grid.add(new Label("Partner:"), 0, 2);
-            grid.add(cmbPartners, 1, 2);
-            cmbPartners.setPrefWidth(300);
+            grid.add(pickerPartners.getNode(), 1, 2);
+            pickerPartners.setPrefWidth(300);
             
             // Loan date
             grid.add(new Label("Loan Date:"), 0, 3);
@@ -465,7 +491,8 @@ public class LoansView {
             datePickerLoan.setPrefWidth(300);
             
             // Information note
-            Label noteLabel = new Label("Note: The loan period is 15 days. Books not returned within\nthis period will be marked as overdue.");
+            Label noteLabel = new Label("Note: The loan period is " + ConfigManager.getInstance().getLoanPeriodDays()
+                    + " days. Books not returned within\nthis period will be marked as overdue.");
             noteLabel.setStyle("-fx-text-fill: gray; -fx-font-size: 11px;");
             noteLabel.setWrapText(true);
             grid.add(noteLabel, 0, 4, 2, 1);
@@ -479,14 +506,14 @@ public class LoansView {
             // Result converter
             setResultConverter(dialogButton -> {
                 if (dialogButton == buttonTypeOk) {
-                    if (cmbBooks.getValue() == null || cmbPartners.getValue() == null) {
+                    if (pickerBooks.getValue() == null || pickerPartners.getValue() == null) {
                         showWarning("Incomplete Information", "Please select both a book and a partner.");
                         return null;
                     }
                     
                     Loan loan = new Loan();
-                    loan.setLibro(cmbBooks.getValue());
-                    loan.setSocio(cmbPartners.getValue());
+                    loan.setLibro(pickerBooks.getValue());
+                    loan.setSocio(pickerPartners.getValue());
                     loan.setFechaPrestamo(datePickerLoan.getValue());
                     loan.setDevuelto(false);
                     return loan;
@@ -504,17 +531,14 @@ public class LoansView {
             );
             
             if (okButton != null) {
-                // Initially disable if no items available
-                boolean hasBooks = !cmbBooks.getItems().isEmpty();
-                boolean hasPartners = !cmbPartners.getItems().isEmpty();
-                okButton.setDisable(!hasBooks || !hasPartners);
+                // Disabled until both a book and a partner are selected
+                okButton.setDisable(true);
                 
-                // Enable/disable based on selections
-                cmbBooks.valueProperty().addListener((obs, oldVal, newVal) -> 
-                        okButton.setDisable(newVal == null || cmbPartners.getValue() == null));
+                pickerBooks.valueProperty().addListener((obs, oldVal, newVal) -> 
+                        okButton.setDisable(newVal == null || pickerPartners.getValue() == null));
                 
-                cmbPartners.valueProperty().addListener((obs, oldVal, newVal) -> 
-                        okButton.setDisable(newVal == null || cmbBooks.getValue() == null));
+                pickerPartners.valueProperty().addListener((obs, oldVal, newVal) -> 
+                        okButton.setDisable(newVal == null || pickerBooks.getValue() == null));
             }
         }
     }
@@ -10,6 +10,7 @@ package com.codeup.novabook.Views;
  */
 import com.codeup.novabook.Models.DAO.PartnerDAO;
 import com.codeup.novabook.Models.Entity.Partner;
+import com.codeup.novabook.Utils.ConfigManager;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -23,7 +24,6 @@ import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 
 public class PartnersView {
@@ -36,10 +36,22 @@ public class PartnersView {
     private TableView<Partner> tablePartners;
     private TextField txtSearch;
     private Label lblTotal;
-    private Button btnAdd, btnEdit, btnDelete, btnRefresh, btnBack;
+    private Button btnAdd, btnEdit, btnDelete, btnRefresh, btnBack, btnLoadMore;
     
     private ObservableList<Partner> partnersList;
     
+    // Keyset pagination state
+    private final int pageSize = ConfigManager.getInstance().getPageSize();
+    private int lastPartnerId;
+    private boolean hasMorePartners;
+    
+    // Database loads run off the JavaFX thread
+    private final BackgroundLoader loader = new BackgroundLoader("PartnersView");
+    
+    // Debounced search state: the filter of the rows currently shown
+    private DebouncedSearch search;
+    private String currentFilter = "";
+    
     public PartnersView(Stage primaryStage, String userRole) {
         this.primaryStage = primaryStage;
         this.userRole = userRole;
@@ -90,6 +102,7 @@ public class PartnersView {
         btnDelete = createButton("Delete", "#f44336");
         btnRefresh = createButton("Refresh", "#2196F3");
         btnBack = createButton("Back", "#9E9E9E");
+        btnLoadMore = createButton("Load More", "#607D8B");
     }
     
     private Button createButton(String text, String color) {
@@ -133,7 +146,7 @@ public class PartnersView {
         bottomPanel.setAlignment(Pos.CENTER_LEFT);
         bottomPanel.setPadding(new Insets(10));
         bottomPanel.setStyle("-fx-background-color: #f0f0f0;");
-        bottomPanel.getChildren().add(lblTotal);
+        bottomPanel.getChildren().addAll(lblTotal, btnLoadMore, loader.getProgressIndicator());
         
         root.setTop(topPanel);
         root.setCenter(tablePartners);
@@ -147,9 +160,10 @@ public class PartnersView {
         btnAdd.setOnAction(e -> showAddDialog());
         btnEdit.setOnAction(e -> showEditDialog());
         btnDelete.setOnAction(e -> deletePartner());
-        btnRefresh.setOnAction(e -> loadPartners());
+        btnRefresh.setOnAction(e -> search.runNow());
+        btnLoadMore.setOnAction(e -> loadMorePartners());
         
-        txtSearch.textProperty().addListener((obs, oldVal, newVal) -> searchPartners());
+        search = new DebouncedSearch(txtSearch, this::searchPartners);
         
         btnEdit.setDisable(true);
         btnDelete.setDisable(true);
@@ -160,37 +174,57 @@ public class PartnersView {
         });
     }
     
+    /**
+     * Load the first page of partners matching the current search filter
+     */
     private void loadPartners() {
-        try {
-            List<Partner> partners = partnerDAO.listar();
-            partnersList.clear();
-            partnersList.addAll(partners);
-            lblTotal.setText("Total partners: " + partners.size());
-        } catch (SQLException e) {
-            showError("Error al cargar socios", "No se pudieron cargar los socios: " + e.getMessage());
+        partnersList.clear();
+        lastPartnerId = 0;
+        hasMorePartners = false;
+        loadMorePartners();
+    }
+    
+    /**
+     * Append the next page of partners after the last one shown
+     */
+    private void loadMorePartners() {
+        int afterId = lastPartnerId;
+        String filter = currentFilter;
+        btnLoadMore.setDisable(true);
+        
+        loader.load(() -> partnerDAO.listarPagina(afterId, pageSize, filter), page -> {
+            partnersList.addAll(page.getItems());
+            if (!page.isEmpty()) {
+                lastPartnerId = page.getLastId();
+            }
+            hasMorePartners = page.hasMore();
+            updateTotalLabel();
+        }, e -> showError("Error al cargar socios", "No se pudieron cargar los socios: " + e.getMessage()));
+    }
+    
+    private void updateTotalLabel() {
+        if (hasMorePartners) {
+            lblTotal.setText("Showing first " + partnersList.size() + " partners");
+        } else {
+            lblTotal.setText("Total partners: " + partnersList.size());
         }
+        btnLoadMore.setDisable(!hasMorePartners);
     }
     
-    private void searchPartners() {
-        String searchText = txtSearch.getText().toLowerCase();
-        if (searchText.isEmpty()) {
-            loadPartners();
+    /**
+     * Run a settled search. A query that only extends the previous one filters
+     * the rows already shown when they are the complete previous result;
+     * any other query goes back to the database (superseded loads are cancelled).
+     */
+    private void searchPartners(String query) {
+        if (search.narrows(query) && !hasMorePartners && !loader.isLoading()) {
+            DebouncedSearch.keepMatching(partnersList, query, Partner::getNombre, Partner::getEmail);
+            currentFilter = query;
+            updateTotalLabel();
             return;
         }
-        
-        try {
-            List<Partner> allPartners = partnerDAO.listar();
-            List<Partner> filteredPartners = allPartners.stream()
-                    .filter(partner -> partner.getNombre().toLowerCase().contains(searchText) ||
-                                      partner.getEmail().toLowerCase().contains(searchText))
-                    .toList();
-            
-            partnersList.clear();
-            partnersList.addAll(filteredPartners);
-            lblTotal.setText("Total partners: " + filteredPartners.size());
-        } catch (SQLException e) {
-            showError("Error en búsqueda", "Error al buscar socios: " + e.getMessage());
-        }
+        currentFilter = query;
+        loadPartners();
     }
     
     private void showAddDialog() {
@@ -10,6 +10,7 @@ package com.codeup.novabook.Views;
  */
 import com.codeup.novabook.Models.DAO.UserDAO;
 import com.codeup.novabook.Models.Entity.Users;
+import com.codeup.novabook.Utils.ConfigManager;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -23,7 +24,6 @@ import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 
 public class UsersView {
@@ -36,10 +36,22 @@ public class UsersView {
     private TableView<Users> tableUsers;
     private TextField txtSearch;
     private Label lblTotal;
-    private Button btnAdd, btnEdit, btnDelete, btnRefresh, btnBack;
+    private Button btnAdd, btnEdit, btnDelete, btnRefresh, btnBack, btnLoadMore;
     
     private ObservableList<Users> usersList;
     
+    // Keyset pagination state
+    private final int pageSize = ConfigManager.getInstance().getPageSize();
+    private int lastUserId;
+    private boolean hasMoreUsers;
+    
+    // Database loads run off the JavaFX thread
+    private final BackgroundLoader loader = new BackgroundLoader("UsersView");
+    
+    // Debounced search state: the filter of the rows currently shown
+    private DebouncedSearch search;
+    private String currentFilter = "";
+    
     public UsersView(Stage primaryStage, String userRole) {
         this.primaryStage = primaryStage;
         this.userRole = userRole;
@@ -102,6 +114,7 @@ public class UsersView {
         btnDelete = createButton("Delete", "#f44336");
         btnRefresh = createButton("Refresh", "#2196F3");
         btnBack = createButton("Back", "#9E9E9E");
+        btnLoadMore = createButton("Load More", "#607D8B");
     }
     
     private Button createButton(String text, String color) {
@@ -145,7 +158,7 @@ public class UsersView {
         bottomPanel.setAlignment(Pos.CENTER_LEFT);
         bottomPanel.setPadding(new Insets(10));
         bottomPanel.setStyle("-fx-background-color: #f0f0f0;");
-        bottomPanel.getChildren().add(lblTotal);
+        bottomPanel.getChildren().addAll(lblTotal, btnLoadMore, loader.getProgressIndicator());
         
         root.setTop(topPanel);
         root.setCenter(tableUsers);
@@ -159,9 +172,10 @@ public class UsersView {
         btnAdd.setOnAction(e -> showAddDialog());
         btnEdit.setOnAction(e -> showEditDialog());
         btnDelete.setOnAction(e -> deleteUser());
-        btnRefresh.setOnAction(e -> loadUsers());
+        btnRefresh.setOnAction(e -> search.runNow());
+        btnLoadMore.setOnAction(e -> loadMoreUsers());
         
-        txtSearch.textProperty().addListener((obs, oldVal, newVal) -> searchUsers());
+        search = new DebouncedSearch(txtSearch, this::searchUsers);
         
         btnEdit.setDisable(true);
         btnDelete.setDisable(true);
@@ -172,37 +186,57 @@ public class UsersView {
         });
     }
     
+    /**
+     * Load the first page of users matching the current search filter
+     */
     private void loadUsers() {
-        try {
-            List<Users> users = userDAO.listar();
-            usersList.clear();
-            usersList.addAll(users);
-            lblTotal.setText("Total users: " + users.size());
-        } catch (SQLException e) {
-            showError("Error al cargar usuarios", "No se pudieron cargar los usuarios: " + e.getMessage());
+        usersList.clear();
+        lastUserId = 0;
+        hasMoreUsers = false;
+        loadMoreUsers();
+    }
+    
+    /**
+     * Append the next page of users after the last one shown
+     */
+    private void loadMoreUsers() {
+        int afterId = lastUserId;
+        String filter = currentFilter;
+        btnLoadMore.setDisable(true);
+        
+        loader.load(() -> userDAO.listarPagina(afterId, pageSize, filter), page -> {
+            usersList.addAll(page.getItems());
+            if (!page.isEmpty()) {
+                lastUserId = page.getLastId();
+            }
+            hasMoreUsers = page.hasMore();
+            updateTotalLabel();
+        }, e -> showError("Error al cargar usuarios", "No se pudieron cargar los usuarios: " + e.getMessage()));
+    }
+    
+    private void updateTotalLabel() {
+        if (hasMoreUsers) {
+            lblTotal.setText("Showing first " + usersList.size() + " users");
+        } else {
+            lblTotal.setText("Total users: " + usersList.size());
         }
+        btnLoadMore.setDisable(!hasMoreUsers);
     }
     
-    private void searchUsers() {
-        String searchText = txtSearch.getText().toLowerCase();
-        if (searchText.isEmpty()) {
-            loadUsers();
+    /**
+     * Run a settled search. A query that only extends the previous one filters
+     * the rows already shown when they are the complete previous result;
+     * any other query goes back to the database (superseded loads are cancelled).
+     */
+    private void searchUsers(String query) {
+        if (search.narrows(query) && !hasMoreUsers && !loader.isLoading()) {
+            DebouncedSearch.keepMatching(usersList, query, Users::getNombre, Users::getEmail);
+            currentFilter = query;
+            updateTotalLabel();
             return;
         }
-        
-        try {
-            List<Users> allUsers = userDAO.listar();
-            List<Users> filteredUsers = allUsers.stream()
-                    .filter(user -> user.getNombre().toLowerCase().contains(searchText) ||
-                                   user.getEmail().toLowerCase().contains(searchText))
-                    .toList();
-            
-            usersList.clear();
-            usersList.addAll(filteredUsers);
-            lblTotal.setText("Total users: " + filteredUsers.size());
-        } catch (SQLException e) {
-            showError("Error en búsqueda", "Error al buscar usuarios: " + e.getMessage());
-        }
+        currentFilter = query;
+        loadUsers();
     }
     
     private void showAddDialog() {
@@ -0,0 +1,80 @@
+package com.codeup.novabook.Models.Connection;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for the latency histogram, SQL table detection and metrics dump of the metrics layer
+ * Author: Luis Alfredo - Clan Cienaga
+ */
+@DisplayName("Latency Histogram Tests")
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Should report percentiles within the bucket precision")
+    void testPercentiles() {
+        // Given - 1 ms to 1000 ms, one measurement each
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int ms = 1; ms <= 1000; ms++) {
+            histogram.recordNanos(ms * 1_000_000L);
+        }
+
+        // When / Then
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getPercentileMillis(50)).isCloseTo(500, within(500 * 0.04));
+        assertThat(histogram.getPercentileMillis(99)).isCloseTo(990, within(990 * 0.04));
+        assertThat(histogram.getPercentileMillis(100)).isEqualTo(1000);
+        assertThat(histogram.getMeanMillis()).isCloseTo(500.5, within(0.01));
+    }
+
+    @Test
+    @DisplayName("Should map every value to a bucket that contains it")
+    void testBucketBounds() {
+        for (long micros : new long[]{0, 1, 63, 64, 65, 127, 128, 1_000, 123_456, 10_000_000_000L}) {
+            // When
+            int index = LatencyHistogram.indexOf(micros);
+
+            // Then
+            assertThat(LatencyHistogram.highestEquivalentValue(index)).isGreaterThanOrEqualTo(micros);
+            if (index > 0) {
+                assertThat(LatencyHistogram.highestEquivalentValue(index - 1)).isLessThan(micros);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should name the first table of each statement")
+    void testTableOf() {
+        assertThat(MeteredConnection.tableOf("SELECT * FROM Libro WHERE id = ?")).isEqualTo("Libro");
+        assertThat(MeteredConnection.tableOf("INSERT INTO Prestamo (libro_id) VALUES (?)")).isEqualTo("Prestamo");
+        assertThat(MeteredConnection.tableOf("UPDATE Socio SET activo = ? WHERE id = ?")).isEqualTo("Socio");
+        assertThat(MeteredConnection.tableOf("SELECT COUNT(*) AS total FROM Prestamo")).isEqualTo("Prestamo");
+        assertThat(MeteredConnection.tableOf("SELECT l.titulo FROM Libro l JOIN Prestamo p ON p.libro_id = l.id")).isEqualTo("Libro");
+        assertThat(MeteredConnection.tableOf("SELECT * FROM (SELECT ? AS id) t JOIN Libro l ON l.id = t.id")).isEqualTo("Libro");
+        assertThat(MeteredConnection.tableOf("SELECT 1")).isEqualTo("?");
+    }
+
+    @Test
+    @DisplayName("Should escape operation and table names in the JSON dump")
+    void testDumpEscaping(@TempDir Path dir) throws Exception {
+        // Given
+        QueryMetrics.reset();
+        QueryMetrics.forOperation("Odd\"Op", "Tab\\le").record(2_000_000, true);
+
+        // When
+        Path file = dir.resolve("metrics.jsonl");
+        QueryMetrics.dumpTo(file);
+
+        // Then
+        String line = Files.readAllLines(file).get(0);
+        assertThat(line).contains("\"op\":\"Odd\\\"Op\"", "\"table\":\"Tab\\\\le\"", "\"count\":1");
+        QueryMetrics.reset();
+    }
+}
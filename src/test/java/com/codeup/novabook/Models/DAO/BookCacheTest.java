@@ -0,0 +1,58 @@
+package com.codeup.novabook.Models.DAO;
+
+import com.codeup.novabook.Models.Entity.Book;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the LRU book cache
+ * Author: Luis Alfredo - Clan Cienaga
+ */
+@DisplayName("Book Cache Tests")
+class BookCacheTest {
+
+    private Book book(int id, String isbn) {
+        return new Book(id, "Title " + id, "Author", isbn, 2000, true, null);
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used book and its ISBN entry")
+    void testLruEviction() {
+        // Given
+        BookCache cache = new BookCache(2);
+        cache.put(book(1, "111"));
+        cache.put(book(2, "222"));
+
+        // When - touching book 1 makes book 2 the eldest
+        cache.getById(1);
+        cache.put(book(3, "333"));
+
+        // Then
+        assertThat(cache.getById(2)).isNull();
+        assertThat(cache.getByIsbn("222")).isNull();
+        assertThat(cache.getByIsbn("111").getId()).isEqualTo(1);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should re-index by the new ISBN and hand out copies")
+    void testWriteThroughAndCopies() {
+        // Given
+        BookCache cache = new BookCache(10);
+        cache.put(book(1, "111"));
+
+        // When
+        cache.put(book(1, "999"));
+        Book cached = cache.getById(1);
+        cached.setTitulo("Changed by caller");
+
+        // Then
+        assertThat(cache.getByIsbn("111")).isNull();
+        assertThat(cache.getByIsbn("999").getTitulo()).isEqualTo("Title 1");
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+}
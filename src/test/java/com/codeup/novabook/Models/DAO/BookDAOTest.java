@@ -0,0 +1,30 @@
+package com.codeup.novabook.Models.DAO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the SQL helpers shared by the DAOs
+ * Author: Luis Alfredo - Clan Cienaga
+ */
+@DisplayName("DAO SQL Helper Tests")
+class BookDAOTest {
+
+    @Test
+    @DisplayName("Should escape LIKE wildcards so search text matches literally")
+    void testEscaparLike() {
+        assertThat(BookDAO.escaparLike("garcia")).isEqualTo("garcia");
+        assertThat(BookDAO.escaparLike("100%")).isEqualTo("100\\%");
+        assertThat(BookDAO.escaparLike("_")).isEqualTo("\\_");
+        assertThat(BookDAO.escaparLike("C:\\libros")).isEqualTo("C:\\\\libros");
+    }
+
+    @Test
+    @DisplayName("Should build one placeholder per value")
+    void testMarcadores() {
+        assertThat(BookDAO.marcadores(1)).isEqualTo("?");
+        assertThat(BookDAO.marcadores(3)).isEqualTo("?, ?, ?");
+    }
+}
@@ -0,0 +1,107 @@
+package com.codeup.novabook.Models.DAO;
+
+import com.codeup.novabook.Models.Entity.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the in-memory book search index
+ * Author: Luis Alfredo - Clan Cienaga
+ */
+@DisplayName("Book Search Index Tests")
+class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.beginLoad();
+        index.load(new Book(1, "Cien años de soledad", "Gabriel García Márquez", "978-0307474728", 1967, true, null));
+        index.load(new Book(2, "El amor en los tiempos del cólera", "Gabriel García Márquez", "978-0307387264", 1985, true, null));
+        index.load(new Book(3, "Gabriela, clavo y canela", "Jorge Amado", "978-8420471839", 1958, true, null));
+        index.finishLoad(true);
+    }
+
+    @Test
+    @DisplayName("Should match accent-free prefixes of every query word")
+    void testAccentFoldingAndPrefixes() {
+        // When
+        List<Book> results = index.search("garcia marq cien", 10);
+
+        // Then
+        assertThat(results).extracting(Book::getId).containsExactly(1);
+        assertThat(index.search("colera", 10)).extracting(Book::getId).containsExactly(2);
+        assertThat(index.search("9780307387264", 10)).extracting(Book::getId).containsExactly(2);
+    }
+
+    @Test
+    @DisplayName("Should rank whole-word matches above prefix matches")
+    void testRanking() {
+        // When
+        List<Book> results = index.search("gabriel", 10);
+
+        // Then - exact author word beats the title prefix, title ties fall back to title order
+        assertThat(results).extracting(Book::getId).containsExactly(1, 2, 3);
+        assertThat(index.search("gabriela", 10)).extracting(Book::getId).containsExactly(3);
+    }
+
+    @Test
+    @DisplayName("Should keep only the best matches and match short queries as whole words")
+    void testLimitAndShortQueries() {
+        // Given
+        index.put(new Book(4, "El general en su laberinto", "Gabriel García Márquez", "978-0307389350", 1989, true, null));
+
+        // When
+        List<Book> results = index.search("gabriel", 2);
+
+        // Then
+        assertThat(results).extracting(Book::getId).containsExactly(1, 2);
+        assertThat(index.search("el", 10)).extracting(Book::getId).containsExactly(2, 4);
+        assertThat(index.search("ga", 10)).isEmpty();
+        assertThat(index.search("el gen", 10)).extracting(Book::getId).containsExactly(4);
+    }
+
+    @Test
+    @DisplayName("Should resync with the catalog on reload, keeping writes made meanwhile")
+    void testReload() {
+        // Given - another desk deleted book 1, edited book 3, lent book 2 and added book 8;
+        // this client adds book 9 during the reload
+        assertThat(index.beginReload()).isTrue();
+        index.put(new Book(9, "Ficciones", "Jorge Luis Borges", "978-0307950925", 1944, true, null));
+
+        // When
+        index.load(new Book(2, "El amor en los tiempos del cólera", "Gabriel García Márquez", "978-0307387264", 1985, false, null));
+        index.load(new Book(3, "Doña Flor y sus dos maridos", "Jorge Amado", "978-8420471839", 1966, true, null));
+        index.load(new Book(8, "Pedro Páramo", "Juan Rulfo", "978-8437604183", 1955, true, null));
+        index.finishLoad(true);
+
+        // Then
+        assertThat(index.search("cien", 10)).isEmpty();
+        assertThat(index.search("gabriela", 10)).isEmpty();
+        assertThat(index.search("dona flor", 10)).extracting(Book::getId).containsExactly(3);
+        assertThat(index.search("colera", 10)).extracting(Book::isDisponible).containsExactly(false);
+        assertThat(index.search("jorge", 10)).extracting(Book::getId).containsExactly(3, 9);
+        assertThat(index.search("paramo", 10)).extracting(Book::getId).containsExactly(8);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should apply updates and removals incrementally")
+    void testIncrementalUpdates() {
+        // When
+        index.put(new Book(3, "Doña Flor y sus dos maridos", "Jorge Amado", "978-8420471839", 1966, true, null));
+        index.remove(1);
+
+        // Then
+        assertThat(index.search("gabriela", 10)).isEmpty();
+        assertThat(index.search("dona flor", 10)).extracting(Book::getId).containsExactly(3);
+        assertThat(index.search("cien", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+}
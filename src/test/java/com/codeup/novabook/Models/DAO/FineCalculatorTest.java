@@ -0,0 +1,45 @@
+package com.codeup.novabook.Models.DAO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the late-return fine policy
+ * Author: Luis Alfredo - Clan Cienaga
+ */
+@DisplayName("Fine Calculator Tests")
+class FineCalculatorTest {
+
+    private final FineCalculator calculator = new FineCalculator(14, 0.75);
+
+    @Test
+    @DisplayName("Should charge nothing up to the due date")
+    void testNoFineWithinLoanPeriod() {
+        // Given
+        LocalDate fechaPrestamo = LocalDate.of(2024, 3, 1);
+
+        // When / Then - due on 2024-03-15
+        assertThat(calculator.diasDeRetraso(fechaPrestamo, LocalDate.of(2024, 3, 10))).isZero();
+        assertThat(calculator.multaAl(fechaPrestamo, LocalDate.of(2024, 3, 15))).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    @DisplayName("Should charge the daily fine for every day past the due date")
+    void testFinePerLateDay() {
+        // Given
+        LocalDate fechaPrestamo = LocalDate.of(2024, 3, 1);
+
+        // When
+        long dias = calculator.diasDeRetraso(fechaPrestamo, LocalDate.of(2024, 3, 18));
+        BigDecimal multa = calculator.calcularMulta(dias);
+
+        // Then
+        assertThat(dias).isEqualTo(3);
+        assertThat(multa).isEqualTo(new BigDecimal("2.25"));
+    }
+}
@@ -0,0 +1,178 @@
+package com.codeup.novabook.Models.DAO;
+
+import com.codeup.novabook.Models.Entity.Loan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the in-memory overdue loan tracker
+ * Author: Luis Alfredo - Clan Cienaga
+ */
+@DisplayName("Overdue Tracker Tests")
+class OverdueTrackerTest {
+
+    private static final LocalDate HOY = LocalDate.of(2024, 3, 20);
+
+    private OverdueTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new OverdueTracker(14);
+        tracker.beginLoad();
+        tracker.load(prestamo(1, HOY.minusDays(20)));   // due 6 days ago
+        tracker.load(prestamo(2, HOY.minusDays(15)));   // due yesterday
+        tracker.load(prestamo(3, HOY.minusDays(14)));   // due today
+        tracker.load(prestamo(4, HOY.minusDays(2)));    // due in 12 days
+        tracker.finishLoad(true);
+    }
+
+    private static Loan prestamo(int id, LocalDate fechaPrestamo) {
+        return new Loan(id, null, null, fechaPrestamo, null, false);
+    }
+
+    @Test
+    @DisplayName("Should list loans past their due date, oldest first")
+    void testOverdueLoans() {
+        // When
+        List<Loan> vencidos = tracker.vencidos(HOY);
+
+        // Then - a loan due today is not overdue yet
+        assertThat(vencidos).extracting(Loan::getId).containsExactly(1, 2);
+        assertThat(tracker.contarVencidos(HOY)).isEqualTo(2);
+        assertThat(tracker.vencenEl(HOY)).extracting(Loan::getId).containsExactly(3);
+    }
+
+    @Test
+    @DisplayName("Should apply checkouts and returns incrementally")
+    void testIncrementalUpdates() {
+        // When
+        tracker.quitar(1);
+        tracker.registrar(prestamo(5, HOY.minusDays(30)));
+        Loan devuelto = prestamo(2, HOY.minusDays(15));
+        devuelto.setDevuelto(true);
+        tracker.registrar(devuelto);
+
+        // Then
+        assertThat(tracker.vencidos(HOY)).extracting(Loan::getId).containsExactly(5);
+        assertThat(tracker.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should keep returns made while loading over the rows being loaded")
+    void testReturnDuringLoad() {
+        // Given
+        OverdueTracker cargando = new OverdueTracker(14);
+        cargando.beginLoad();
+
+        // When - the loan is returned before its row arrives from the database
+        cargando.quitar(7);
+        cargando.load(prestamo(7, HOY.minusDays(30)));
+        cargando.finishLoad(true);
+
+        // Then
+        assertThat(cargando.vencidos(HOY)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should raise due and overdue events once per day change")
+    void testDayBoundaryEvents() {
+        // Given
+        List<String> eventos = new ArrayList<>();
+        tracker.addListener(new OverdueTracker.Listener() {
+            @Override
+            public void onDue(List<Loan> prestamos, LocalDate hoy) {
+                prestamos.forEach(p -> eventos.add("due " + p.getId() + " " + hoy));
+            }
+
+            @Override
+            public void onOverdue(List<Loan> prestamos, LocalDate hoy) {
+                prestamos.forEach(p -> eventos.add("overdue " + p.getId() + " " + hoy));
+            }
+        });
+
+        // When
+        tracker.avanzar(HOY);
+        tracker.avanzar(HOY);
+        tracker.avanzar(HOY.plusDays(1));
+
+        // Then - loan 3 falls due today and becomes overdue tomorrow
+        assertThat(eventos).containsExactly(
+                "due 3 " + HOY,
+                "overdue 3 " + HOY.plusDays(1));
+    }
+
+    @Test
+    @DisplayName("Should keep notifying the other listeners when one of them fails")
+    void testFailingListener() {
+        // Given - the first listener fails on every event
+        List<String> eventos = new ArrayList<>();
+        tracker.addListener(new OverdueTracker.Listener() {
+            @Override
+            public void onDue(List<Loan> prestamos, LocalDate hoy) {
+                throw new IllegalStateException("sin conexión");
+            }
+
+            @Override
+            public void onOverdue(List<Loan> prestamos, LocalDate hoy) {
+                throw new IllegalStateException("sin conexión");
+            }
+
+            @Override
+            public void beforeNewDay(LocalDate hoy) {
+                throw new IllegalStateException("sin conexión");
+            }
+        });
+        tracker.addListener(new OverdueTracker.Listener() {
+            @Override
+            public void onDue(List<Loan> prestamos, LocalDate hoy) {
+                eventos.add("due " + hoy);
+            }
+
+            @Override
+            public void onOverdue(List<Loan> prestamos, LocalDate hoy) {
+                eventos.add("overdue " + hoy);
+            }
+
+            @Override
+            public void onNewDay(LocalDate hoy) {
+                eventos.add("new day " + hoy);
+            }
+        });
+
+        // When
+        tracker.avanzar(HOY);
+        tracker.avanzar(HOY.plusDays(1));
+
+        // Then
+        assertThat(eventos).containsExactly(
+                "due " + HOY, "new day " + HOY,
+                "overdue " + HOY.plusDays(1), "new day " + HOY.plusDays(1));
+    }
+
+    @Test
+    @DisplayName("Should resync with the database on reload, keeping writes made meanwhile")
+    void testReload() {
+        // Given - another desk returned loan 1 and lent loan 8; this client lends loan 9 during the reload
+        assertThat(tracker.beginReload()).isTrue();
+        tracker.registrar(prestamo(9, HOY.minusDays(16)));
+
+        // When - the database no longer has loan 1 as active
+        tracker.load(prestamo(2, HOY.minusDays(15)));
+        tracker.load(prestamo(3, HOY.minusDays(14)));
+        tracker.load(prestamo(4, HOY.minusDays(2)));
+        tracker.load(prestamo(8, HOY.minusDays(25)));
+        tracker.finishLoad(true);
+
+        // Then
+        assertThat(tracker.vencidos(HOY)).extracting(Loan::getId).containsExactly(8, 9, 2);
+        assertThat(tracker.size()).isEqualTo(5);
+        assertThat(tracker.isReady()).isTrue();
+    }
+}
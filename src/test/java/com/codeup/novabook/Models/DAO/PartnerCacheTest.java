@@ -0,0 +1,84 @@
+package com.codeup.novabook.Models.DAO;
+
+import com.codeup.novabook.Models.Entity.Partner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the TTL partner cache
+ * Author: Luis Alfredo - Clan Cienaga
+ */
+@DisplayName("Partner Cache Tests")
+class PartnerCacheTest {
+
+    private Partner partner(int id, String email) {
+        return new Partner(id, "Partner " + id, "Street", "555", email, true, null);
+    }
+
+    @Test
+    @DisplayName("Should find partners by email ignoring case and drop them on invalidate")
+    void testEmailIndex() {
+        // Given
+        PartnerCache cache = new PartnerCache(10, 60000);
+        cache.put(partner(1, "Ana@Example.com"));
+
+        // Then
+        assertThat(cache.getByEmail("ana@example.com").getId()).isEqualTo(1);
+
+        // When
+        cache.invalidate(1);
+
+        // Then
+        assertThat(cache.getByEmail("ana@example.com")).isNull();
+        assertThat(cache.getById(1)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should expire entries after the TTL and evict the oldest when full")
+    void testExpiryAndEviction() throws InterruptedException {
+        // Given
+        PartnerCache expiring = new PartnerCache(10, 1);
+        expiring.put(partner(1, "a@example.com"));
+        Thread.sleep(5);
+
+        // Then
+        assertThat(expiring.getById(1)).isNull();
+        assertThat(expiring.getExpirations()).isEqualTo(1);
+
+        // Given
+        PartnerCache bounded = new PartnerCache(2, 60000);
+        bounded.put(partner(1, "a@example.com"));
+        Thread.sleep(2);
+        bounded.put(partner(2, "b@example.com"));
+        Thread.sleep(2);
+
+        // When
+        bounded.put(partner(3, "c@example.com"));
+
+        // Then
+        assertThat(bounded.size()).isEqualTo(2);
+        assertThat(bounded.getById(1)).isNull();
+        assertThat(bounded.getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should treat a reloaded partner as the newest entry")
+    void testReloadMovesToNewest() {
+        // Given
+        PartnerCache cache = new PartnerCache(2, 60000);
+        cache.put(partner(1, "a@example.com"));
+        cache.put(partner(2, "b@example.com"));
+
+        // When - partner 1 is loaded again, so partner 2 is now the oldest
+        cache.put(partner(1, "a@example.com"));
+        cache.put(partner(3, "c@example.com"));
+
+        // Then
+        assertThat(cache.getById(2)).isNull();
+        assertThat(cache.getById(1)).isNotNull();
+        assertThat(cache.getById(3)).isNotNull();
+        assertThat(cache.getEvictions()).isEqualTo(1);
+    }
+}
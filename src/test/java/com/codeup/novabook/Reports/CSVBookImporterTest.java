@@ -0,0 +1,92 @@
+package com.codeup.novabook.Reports;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.codeup.novabook.Models.Entity.Book;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the CSV record splitting and parsing stages of the book importer
+ * Author: Luis Alfredo - Clan Cienaga
+ */
+@DisplayName("CSV Book Importer Tests")
+class CSVBookImporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private List<CSVBookImporter.CSVRecord> readAll(String csv, int windowSize) throws IOException {
+        Path file = tempDir.resolve("books.csv");
+        Files.write(file, csv.getBytes(StandardCharsets.UTF_8));
+        List<CSVBookImporter.CSVRecord> records = new ArrayList<>();
+        try (MappedCSVReader reader = new MappedCSVReader(file, windowSize)) {
+            CSVBookImporter.CSVRecord record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private String text(CSVBookImporter.CSVRecord record) {
+        return StandardCharsets.UTF_8.decode(record.bytes.duplicate()).toString();
+    }
+
+    @Test
+    @DisplayName("Should keep quoted newlines inside one record and track physical line numbers")
+    void testQuotedNewlines() throws IOException {
+        // Given
+        String csv = "Title,Author,ISBN,Year\r\n"
+                + "\"Multi\nline\",Author,111,2001\r\n"
+                + "Plain,Author,222,2002\n";
+
+        // When - a tiny window forces records to be remapped across window boundaries
+        List<CSVBookImporter.CSVRecord> records = readAll(csv, 8);
+
+        // Then
+        assertThat(records).hasSize(3);
+        assertThat(text(records.get(1))).isEqualTo("\"Multi\nline\",Author,111,2001");
+        assertThat(records.get(1).lineNumber).isEqualTo(2);
+        assertThat(text(records.get(2))).isEqualTo("Plain,Author,222,2002");
+        assertThat(records.get(2).lineNumber).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should parse quoted fields with escaped quotes and multi-byte characters")
+    void testParseBookFromCSVLine() throws Exception {
+        // When
+        Book book = CSVBookImporter.parseBookFromCSVLine("\"Say \"\"hi\"\", world\", José Martí ,123, 1999 ", 2);
+
+        // Then
+        assertThat(book.getTitulo()).isEqualTo("Say \"hi\", world");
+        assertThat(book.getAutor()).isEqualTo("José Martí");
+        assertThat(book.getIsbn()).isEqualTo("123");
+        assertThat(book.getAnioPublicacion()).isEqualTo(1999);
+    }
+
+    @Test
+    @DisplayName("Should report errors with the line number of the record")
+    void testParseChunkErrors() throws IOException {
+        // Given
+        List<CSVBookImporter.CSVRecord> records = readAll("Header\nGood,Author,1,2000\n,Author,2,2000\nBad,Author,3,20x0\n", 1024);
+
+        // When
+        CSVBookImporter.ParsedChunk chunk = CSVBookImporter.parseChunk(records.subList(1, records.size()));
+
+        // Then
+        assertThat(chunk.books).hasSize(1);
+        assertThat(chunk.errors).containsExactly(
+                "Line 3: Title cannot be empty",
+                "Line 4: Invalid publication year format: 20x0");
+    }
+}
@@ -0,0 +1,117 @@
+package com.codeup.novabook.Utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the asynchronous log handler and its ring buffer
+ * Author: Luis Alfredo - Clan Cienaga
+ */
+@DisplayName("Async Log Handler Tests")
+class AsyncLogHandlerTest {
+
+    /**
+     * Collects records; optionally stalls on the first one until released
+     */
+    private static class RecordingHandler extends Handler {
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        final List<String> threads = new CopyOnWriteArrayList<>();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release;
+
+        RecordingHandler(boolean stall) {
+            this.release = new CountDownLatch(stall ? 1 : 0);
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            messages.add(record.getMessage());
+            threads.add(Thread.currentThread().getName());
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    @DisplayName("Should write every record in order from the background thread")
+    void testWritesInOrder() {
+        // Given
+        RecordingHandler delegate = new RecordingHandler(false);
+        AsyncLogHandler handler = new AsyncLogHandler(delegate, 16, AsyncLogHandler.OverflowPolicy.BLOCK, 1);
+
+        // When - more records than slots, so callers have to wait for the writer
+        for (int i = 0; i < 100; i++) {
+            handler.publish(new LogRecord(Level.INFO, "message " + i));
+        }
+        handler.close();
+
+        // Then
+        assertThat(delegate.messages).hasSize(100);
+        assertThat(delegate.messages.get(0)).isEqualTo("message 0");
+        assertThat(delegate.messages.get(99)).isEqualTo("message 99");
+        assertThat(delegate.threads).containsOnly("async-logger");
+        assertThat(handler.getDropped()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should drop and count records that find the buffer full under DROP")
+    void testDropPolicy() throws InterruptedException {
+        // Given - the writer is stuck on the first record
+        RecordingHandler delegate = new RecordingHandler(true);
+        AsyncLogHandler handler = new AsyncLogHandler(delegate, 4, AsyncLogHandler.OverflowPolicy.DROP, 1);
+        handler.publish(new LogRecord(Level.INFO, "first"));
+        assertThat(delegate.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            handler.publish(new LogRecord(Level.INFO, "message " + i));
+        }
+        delegate.release.countDown();
+        handler.close();
+
+        // Then - four slots were free, the other six records were dropped
+        assertThat(handler.getOverflows()).isEqualTo(6);
+        assertThat(handler.getDropped()).isEqualTo(6);
+        assertThat(delegate.messages).containsExactly("first", "message 0", "message 1", "message 2", "message 3");
+    }
+
+    @Test
+    @DisplayName("Should wake the idle writer when a record arrives")
+    void testWakesIdleWriter() throws InterruptedException {
+        // Given - the writer has drained everything and gone to sleep
+        RecordingHandler delegate = new RecordingHandler(false);
+        AsyncLogHandler handler = new AsyncLogHandler(delegate, 16, AsyncLogHandler.OverflowPolicy.BLOCK, 1, "test-logger");
+        Thread.sleep(50);
+
+        // When
+        handler.publish(new LogRecord(Level.INFO, "after idle"));
+
+        // Then - written without waiting for close()
+        assertThat(delegate.entered.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(delegate.messages).containsExactly("after idle");
+        assertThat(delegate.threads).containsOnly("test-logger");
+        handler.close();
+    }
+}
@@ -0,0 +1,50 @@
+package com.codeup.novabook.Utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.time.Instant;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the JSON-lines event formatter
+ * Author: Luis Alfredo - Clan Cienaga
+ */
+@DisplayName("JSON Lines Formatter Tests")
+class JsonLinesFormatterTest {
+
+    private final JsonLinesFormatter formatter = new JsonLinesFormatter();
+
+    private static LogRecord event(Object duration, Object correlationId, Object details) {
+        LogRecord record = new LogRecord(Level.INFO, "INSERT");
+        record.setInstant(Instant.parse("2024-03-20T10:15:30.123Z"));
+        record.setParameters(new Object[]{"INSERT", "Prestamo", duration, true, correlationId, "worker-1", details});
+        return record;
+    }
+
+    @Test
+    @DisplayName("Should write one compact JSON object per line")
+    void testCompactLine() {
+        // When
+        String line = formatter.format(event(4_217_345L, "k3x9-12", null));
+
+        // Then - null fields are left out
+        assertThat(line).isEqualTo("{\"ts\":\"2024-03-20T10:15:30.123Z\",\"op\":\"INSERT\",\"table\":\"Prestamo\","
+                + "\"duration_ms\":4.217,\"success\":true,\"correlation_id\":\"k3x9-12\",\"thread\":\"worker-1\"}\n");
+    }
+
+    @Test
+    @DisplayName("Should escape quotes, backslashes and control characters")
+    void testEscaping() {
+        // When
+        String line = formatter.format(event(null, null, "Duplicate \"978-0\"\nat C:\\db\u0001"));
+
+        // Then
+        assertThat(line).doesNotContain("duration_ms").doesNotContain("correlation_id");
+        assertThat(line).endsWith(",\"details\":\"Duplicate \\\"978-0\\\"\\nat C:\\\\db\\u0001\"}\n");
+        assertThat(line.indexOf('\n')).isEqualTo(line.length() - 1);
+    }
+}